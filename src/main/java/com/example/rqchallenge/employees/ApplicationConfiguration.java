@@ -1,26 +1,142 @@
 package com.example.rqchallenge.employees;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Spring configuration, primarily used to construct the WebClient.
  */
 @Configuration
+@EnableConfigurationProperties(TenantProperties.class)
 public class ApplicationConfiguration {
 
     @Value("${employee.base-uri}")
     private String baseUrl;
 
     @Bean
-    public WebClient webClient(WebClient.Builder webClientBuilder) {
-        return webClientBuilder.baseUrl(baseUrl)
-                               .defaultHeader(HttpHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON.toString())
+    public WebClient webClient(WebClient.Builder webClientBuilder,
+                               UpstreamRecorder upstreamRecorder) {
+        return upstreamRecorder.apply(TenantRegistry.DEFAULT_TENANT,
+                                      webClientBuilder.baseUrl(baseUrl)
+                                                      .defaultHeader(HttpHeaders.CONTENT_TYPE,
+                                                                     MimeTypeUtils.APPLICATION_JSON.toString())
+                                                      .filter(StageTrace.responseTimer()))
                                .build();
     }
 
+    /**
+     * Recording or offline replay of the employee WebClients' upstream exchanges, see {@link UpstreamRecorder}.
+     * Replayed responses are decoded with the same codecs as live ones.
+     */
+    @Bean(destroyMethod = "close")
+    public UpstreamRecorder upstreamRecorder(@Value("${employee.upstream.recording.mode:off}") String mode,
+                                             @Value("${employee.upstream.recording.path:upstream-recording.ndjson.gz}") String path,
+                                             @Value("${employee.upstream.recording.time-scale:1.0}") double timeScale,
+                                             ObjectMapper mapper,
+                                             ObjectProvider<CodecCustomizer> codecCustomizers,
+                                             Scheduler blockingScheduler) {
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                                                          .codecs(configurer -> codecCustomizers.orderedStream()
+                                                                                                .forEach(customizer -> customizer.customize(configurer)))
+                                                          .build();
+        return new UpstreamRecorder(mode, Paths.get(path), timeScale, mapper, strategies, blockingScheduler);
+    }
+
+    /**
+     * Binary Smile encoding for consumers which send {@code Accept: application/x-jackson-smile}.
+     * WebFlux registers Smile codecs on its own once the format is on the classpath, but with a bare mapper; these
+     * share the JSON mapper's configuration so both formats carry the same fields.
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory())
+                                                      .build();
+        return configurer -> {
+            configurer.defaultCodecs()
+                      .jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+            configurer.defaultCodecs()
+                      .jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        };
+    }
+
+    @Bean
+    public RateLimiter upstreamRateLimiter(@Value("${employee.rate-limit.permits-per-second:5}") double permitsPerSecond,
+                                           @Value("${employee.rate-limit.burst:5}") int burst) {
+        return new RateLimiter(permitsPerSecond, burst);
+    }
+
+    /**
+     * Scheduler for the default tenant's upstream calls; other tenants copy its lane settings.
+     */
+    @Bean
+    public UpstreamScheduler upstreamScheduler(@Value("${employee.scheduler.max-concurrency:8}") int maxConcurrency,
+                                               @Value("${employee.scheduler.interactive.weight:8}") int interactiveWeight,
+                                               @Value("${employee.scheduler.interactive.queue-capacity:256}") int interactiveCapacity,
+                                               @Value("${employee.scheduler.bulk.weight:2}") int bulkWeight,
+                                               @Value("${employee.scheduler.bulk.queue-capacity:16}") int bulkCapacity,
+                                               @Value("${employee.scheduler.background.weight:1}") int backgroundWeight,
+                                               @Value("${employee.scheduler.background.queue-capacity:64}") int backgroundCapacity) {
+        Map<UpstreamScheduler.Lane, Integer> weights = new EnumMap<>(UpstreamScheduler.Lane.class);
+        weights.put(UpstreamScheduler.Lane.INTERACTIVE, interactiveWeight);
+        weights.put(UpstreamScheduler.Lane.BULK, bulkWeight);
+        weights.put(UpstreamScheduler.Lane.BACKGROUND, backgroundWeight);
+        Map<UpstreamScheduler.Lane, Integer> capacities = new EnumMap<>(UpstreamScheduler.Lane.class);
+        capacities.put(UpstreamScheduler.Lane.INTERACTIVE, interactiveCapacity);
+        capacities.put(UpstreamScheduler.Lane.BULK, bulkCapacity);
+        capacities.put(UpstreamScheduler.Lane.BACKGROUND, backgroundCapacity);
+        return new UpstreamScheduler(maxConcurrency, weights, capacities);
+    }
+
+    @Bean
+    public NegativeCache negativeCache(@Value("${employee.negative-cache.ttl-ms:60000}") long missTtlMs,
+                                       @Value("${employee.negative-cache.roster-ttl-ms:300000}") long rosterTtlMs,
+                                       @Value("${employee.negative-cache.max-size:10000}") int maxMisses,
+                                       @Value("${employee.negative-cache.false-positive-rate:0.01}") double falsePositiveRate) {
+        return new NegativeCache(missTtlMs, rosterTtlMs, maxMisses, falsePositiveRate);
+    }
+
+    /**
+     * Statistics of the string pool shared by all decoded employees, bound once per registry.
+     */
+    @Bean
+    public MeterBinder employeeStringPoolMetrics() {
+        return registry -> Employee.STRINGS.bindTo(registry, "employee");
+    }
+
+    /**
+     * Lease store coordinating roster prefetches across replicas; the default file store only coordinates replicas
+     * sharing the directory, e.g. through a mounted volume.
+     */
+    @Bean
+    public LeaseStore leaseStore(@Value("${employee.prefetch.lease-dir:${java.io.tmpdir}/employee-prefetch}") String directory) {
+        return new FileLeaseStore(Paths.get(directory));
+    }
+
+    /**
+     * Scheduler for blocking adapter paths, either "bounded-elastic" or "virtual" (Java 21+).
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler(@Value("${employee.blocking.scheduler:bounded-elastic}") String mode) {
+        return BlockingSchedulers.create(mode);
+    }
+
 }
@@ -0,0 +1,14 @@
+package com.example.rqchallenge.employees;
+
+import static java.lang.String.format;
+
+/**
+ * A batch request asked for more IDs than the configured maximum.
+ */
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int maxIds) {
+        super(format("A batch may request at most %d IDs.", maxIds));
+    }
+
+}
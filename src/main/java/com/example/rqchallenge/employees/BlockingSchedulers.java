@@ -0,0 +1,68 @@
+package com.example.rqchallenge.employees;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory for the scheduler used to bridge blocking work (file I/O, startup warm-up) off the event loop.
+ * Virtual threads are looked up reflectively so that the application still builds and runs on Java 11, falling back
+ * to the bounded elastic scheduler when they are not available.
+ */
+final class BlockingSchedulers {
+
+    static final String BOUNDED_ELASTIC = "bounded-elastic";
+    static final String VIRTUAL = "virtual";
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingSchedulers.class);
+
+    private BlockingSchedulers() {
+        // intentionally empty
+    }
+
+    /**
+     * @param mode Either {@value #BOUNDED_ELASTIC} or {@value #VIRTUAL}.
+     * @return Scheduler for blocking adapter paths.
+     */
+    static Scheduler create(String mode) {
+        if (VIRTUAL.equalsIgnoreCase(mode)) {
+            Optional<ExecutorService> executor = virtualThreadExecutor();
+            if (executor.isPresent()) {
+                return Schedulers.fromExecutorService(executor.get(), VIRTUAL);
+            }
+            log.warn("Virtual threads are not available on Java {}, falling back to {}",
+                     Runtime.version()
+                            .feature(),
+                     BOUNDED_ELASTIC);
+        } else if (!BOUNDED_ELASTIC.equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown blocking scheduler: " + mode);
+        }
+        return Schedulers.boundedElastic();
+    }
+
+    /**
+     * @return True if this JVM can create virtual threads (Java 21+).
+     */
+    static boolean virtualThreadsAvailable() {
+        return virtualThreadExecutor().map(executor -> {
+                                           executor.shutdown();
+                                           return true;
+                                       })
+                                       .orElse(false);
+    }
+
+    private static Optional<ExecutorService> virtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                                                .invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+}
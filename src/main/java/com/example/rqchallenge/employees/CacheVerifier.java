@@ -0,0 +1,165 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Samples each tenant's cache against its back-end, to measure how far the cache has drifted from the source of
+ * truth between refreshes.
+ * Every {@code employee.verify.interval-ms}, up to {@code employee.verify.sample-size} cached employees are fetched
+ * again on the BACKGROUND lane and compared, and each is counted in {@code employee.cache.verify} by outcome:
+ * <ul>
+ *     <li>match: the back-end has the same employee;</li>
+ *     <li>stale: the back-end has different values for the employee;</li>
+ *     <li>deleted: the back-end no longer has the employee;</li>
+ *     <li>pending: a local write to the employee awaits confirmation, so it is not compared.</li>
+ * </ul>
+ * {@code employee.cache.divergence} is the fraction of compared employees which were stale or deleted in the latest
+ * run. Failed fetches are logged and not counted.
+ */
+@Component
+public class CacheVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheVerifier.class);
+    private final IEmployeeService service;
+    private final TenantRegistry tenants;
+    private final MeterRegistry meterRegistry;
+    /**
+     * Divergence of each tenant's latest run, by tenant name; arrays so the gauges can read them.
+     */
+    private final Map<String, double[]> divergence = new ConcurrentHashMap<>();
+    private Disposable schedule;
+
+    /**
+     * Whether to sample the caches against the back-end; each sample costs one back-end call.
+     */
+    @Value("${employee.verify.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Time (in ms) between verification runs.
+     */
+    @Value("${employee.verify.interval-ms:300000}")
+    private long intervalMs;
+
+    /**
+     * Number of cached employees verified per tenant and run.
+     */
+    @Value("${employee.verify.sample-size:10}")
+    private int sampleSize;
+
+    @Autowired
+    public CacheVerifier(@Autowired IEmployeeService service,
+                         @Autowired TenantRegistry tenants,
+                         @Autowired MeterRegistry meterRegistry) {
+        this.service = service;
+        this.tenants = tenants;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || schedule != null) {
+            return;
+        }
+        schedule = Flux.interval(Duration.ofMillis(intervalMs))
+                       .onBackpressureDrop()
+                       .concatMap(tick -> Flux.fromIterable(tenants.all())
+                                              .concatMap(this::verify), 1)
+                       .subscribe();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.dispose();
+            schedule = null;
+        }
+    }
+
+    /**
+     * Verify a sample of one tenant's cache.
+     */
+    Mono<Void> verify(Tenant tenant) {
+        FluxCache<Integer, Employee> cache = tenant.getCache();
+        int[] compared = new int[2];
+        return Flux.fromIterable(cache.sampleKeys(sampleSize))
+                   .concatMap(id -> {
+                       if (cache.isPending(id)) {
+                           return Mono.just("pending");
+                       }
+                       Optional<Employee> cached = cache.peek(id);
+                       if (cached.isEmpty()) {
+                           return Mono.empty();
+                       }
+                       return service.fetchEmployeeById(id)
+                                     .map(upstream -> {
+                                         // a write while the fetch was in flight makes the comparison meaningless
+                                         if (cache.isPending(id)) {
+                                             return "pending";
+                                         }
+                                         return upstream.map(employee -> employee.equals(cached.get()) ? "match" : "stale")
+                                                        .orElse("deleted");
+                                     })
+                                     .onErrorResume(e -> {
+                                         log.warn("Could not verify employee {} of tenant {}", id, tenant.getName(), e);
+                                         return Mono.empty();
+                                     });
+                   })
+                   .doOnNext(outcome -> {
+                       meterRegistry.counter("employee.cache.verify", "tenant", tenant.getName(), "outcome", outcome)
+                                    .increment();
+                       if (!"pending".equals(outcome)) {
+                           compared[0]++;
+                           if (!"match".equals(outcome)) {
+                               compared[1]++;
+                           }
+                       }
+                   })
+                   .then(Mono.fromRunnable(() -> {
+                       if (compared[0] > 0) {
+                           divergence(tenant)[0] = (double) compared[1] / compared[0];
+                       }
+                       if (compared[1] > 0) {
+                           log.info("Cache of tenant {} diverged from the back-end for {} of {} sampled employees",
+                                    tenant.getName(), compared[1], compared[0]);
+                       }
+                   }))
+                   .onErrorResume(e -> {
+                       log.warn("Could not verify the cache of tenant {}", tenant.getName(), e);
+                       return Mono.empty();
+                   })
+                   .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, tenant.getName())
+                                                   .put(UpstreamScheduler.LANE_CONTEXT_KEY,
+                                                        UpstreamScheduler.Lane.BACKGROUND))
+                   .then();
+    }
+
+    private double[] divergence(Tenant tenant) {
+        return divergence.computeIfAbsent(tenant.getName(), name -> {
+            double[] latest = new double[1];
+            Gauge.builder("employee.cache.divergence", latest, value -> value[0])
+                 .tag("tenant", name)
+                 .strongReference(true)
+                 .register(meterRegistry);
+            return latest;
+        });
+    }
+
+}
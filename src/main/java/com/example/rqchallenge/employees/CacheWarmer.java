@@ -0,0 +1,74 @@
+package com.example.rqchallenge.employees;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Loads each tenant's roster into its cache once the application is ready to serve.
+ * The load runs in the background on the upstream scheduler's BACKGROUND lane, so neither startup nor the first
+ * interactive requests wait behind it; a failed warm-up is logged and the cache fills on demand instead.
+ */
+@Component
+public class CacheWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+    private final IEmployeeService service;
+    private final TenantRegistry tenants;
+
+    /**
+     * Whether to load the rosters after startup.
+     */
+    @Value("${employee.warm-up.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * How long to wait for a tenant's roster before giving up on warming its cache.
+     */
+    @Value("${employee.warm-up.timeout-ms:120000}")
+    private long timeoutMs;
+
+    @Autowired
+    public CacheWarmer(@Autowired IEmployeeService service,
+                       @Autowired TenantRegistry tenants) {
+        this.service = service;
+        this.tenants = tenants;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Flux.fromIterable(tenants.all())
+            .flatMap(tenant -> Flux.defer(service::getAllEmployees)
+                                   .count()
+                                   .timeout(Duration.ofMillis(timeoutMs))
+                                   .doOnNext(count -> log.info("Warmed cache for tenant {} with {} employees",
+                                                               tenant.getName(), count))
+                                   .doOnError(e -> log.warn("Could not warm cache for tenant {}",
+                                                            tenant.getName(), e))
+                                   .onErrorResume(e -> Mono.empty())
+                                   .contextWrite(ctx -> ctx.put(TenantRegistry.CONTEXT_KEY, tenant.getName())
+                                                           .put(UpstreamScheduler.LANE_CONTEXT_KEY,
+                                                                UpstreamScheduler.Lane.BACKGROUND)))
+            .then()
+            .subscribe(x -> {
+                       },
+                       e -> log.warn("Cache warm-up failed", e),
+                       () -> log.info("Cache warm-up finished in {} ms",
+                                      Duration.ofNanos(System.nanoTime() - start)
+                                              .toMillis()));
+    }
+
+}
+
@@ -0,0 +1,68 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+
+/**
+ * A profile image held in the {@link ProfileImageCache}.
+ */
+public class CachedImage {
+
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+    private final MediaType mediaType;
+    private final String eTag;
+    private volatile long lastAccess;
+
+    CachedImage(Path path,
+                long size,
+                long lastModified,
+                MediaType mediaType) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.mediaType = mediaType;
+        this.eTag = "\"" + path.getFileName() + "-" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        this.lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Location of the image in the on-disk cache.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Time (epoch ms) at which the image was fetched from the back-end.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Strong validator for conditional requests, derived from the cache file name, size and fetch time.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
+/**
+ * Tracking record for an asynchronous employee creation.
+ * Instances are treated as immutable once published: each state transition produces a new copy, which is what gets
+ * appended to the {@link CreateJobJournal}.
+ */
+public class CreateJob {
+
+    public enum State {
+        PENDING,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private String id;
+    private String tenant;
+    private String idempotencyKey;
+    private State state;
+    private Map<String, Object> input;
+    private Employee employee;
+    private String message;
+    private long submittedAt;
+    private long updatedAt;
+
+    /**
+     * Default constructor provided for JSON deserialization.
+     */
+    @SuppressWarnings("unused")
+    public CreateJob() {
+    }
+
+    /**
+     * Create a new job in the PENDING state.
+     *
+     * @param id             Tracking ID of the job.
+     * @param tenant         Tenant the employee is created for.
+     * @param idempotencyKey Client-supplied key, may be null.
+     * @param input          Map of intended employee data.
+     * @return New job.
+     */
+    public static CreateJob pending(String id,
+                                    String tenant,
+                                    String idempotencyKey,
+                                    Map<String, Object> input) {
+        CreateJob job = new CreateJob();
+        long now = System.currentTimeMillis();
+        job.setId(id);
+        job.setTenant(tenant);
+        job.setIdempotencyKey(idempotencyKey);
+        job.setState(State.PENDING);
+        job.setInput(input);
+        job.setSubmittedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    public CreateJob running() {
+        return transition(State.RUNNING, null, null);
+    }
+
+    public CreateJob succeeded(Employee created) {
+        return transition(State.SUCCEEDED, created, null);
+    }
+
+    public CreateJob failed(String reason) {
+        return transition(State.FAILED, null, reason);
+    }
+
+    private CreateJob transition(State newState,
+                                 Employee created,
+                                 String reason) {
+        CreateJob job = new CreateJob();
+        job.setId(id);
+        job.setTenant(tenant);
+        job.setIdempotencyKey(idempotencyKey);
+        job.setState(newState);
+        job.setInput(input);
+        job.setEmployee(created);
+        job.setMessage(reason);
+        job.setSubmittedAt(submittedAt);
+        job.setUpdatedAt(System.currentTimeMillis());
+        return job;
+    }
+
+    /**
+     * @return True if the job reached a terminal state and will not be attempted again.
+     */
+    @JsonIgnore
+    public boolean isDone() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Tenant the employee is created for; absent on jobs journaled before tenants were introduced, which belong to
+     * the default tenant.
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Map<String, Object> getInput() {
+        return input;
+    }
+
+    public void setInput(Map<String, Object> input) {
+        this.input = input;
+    }
+
+    /**
+     * Created employee, only present once the job has SUCCEEDED.
+     */
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(Employee employee) {
+        this.employee = employee;
+    }
+
+    /**
+     * Failure reason, only present once the job has FAILED.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(long submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+}
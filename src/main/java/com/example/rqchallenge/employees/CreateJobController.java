@@ -0,0 +1,61 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Controller for asynchronous employee creation.
+ *
+ * @see CreateJobQueue
+ */
+@RestController
+public class CreateJobController {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final CreateJobQueue queue;
+
+    public CreateJobController(@Autowired CreateJobQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Accept an Employee for creation without waiting for the back-end.
+     *
+     * @param idempotencyKey Optional client-supplied key; repeated submissions with the same key and body return the
+     *                       same job, and a different body with the same key is rejected with 422.
+     * @param employeeInput  Request with body containing a map of intended employee data.
+     * @return 202 Accepted with the tracking job, and its status URL in the Location header.
+     */
+    @PostMapping("/async")
+    public Mono<ResponseEntity<CreateJob>> createEmployeeAsync(@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                               @RequestBody Map<String, Object> employeeInput) {
+        return queue.submit(employeeInput, idempotencyKey)
+                    .map(job -> ResponseEntity.accepted()
+                                              .location(URI.create("/jobs/" + job.getId()))
+                                              .body(job));
+    }
+
+    /**
+     * Get the state of an asynchronous creation.
+     *
+     * @param jobId Tracking ID returned on submission.
+     * @return Current state of the job, or 404 if no job is known under the ID.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Mono<CreateJob> getCreateJob(@PathVariable String jobId) {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(queue.getJob(TenantRegistry.tenantName(context), jobId)))
+                   .switchIfEmpty(Mono.error(() -> new JobNotFoundException(jobId)));
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Local append-only journal of {@link CreateJob} state transitions, one JSON document per line.
+ * On startup the journal is replayed (last record per job wins) and compacted, so accepted jobs survive a restart;
+ * the {@link CreateJobQueue} compacts it again periodically as it evicts finished jobs.
+ * All methods perform blocking file I/O and must not be called from an event loop thread.
+ */
+@Component
+public class CreateJobJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(CreateJobJournal.class);
+    private final ObjectMapper mapper;
+    private FileChannel channel;
+
+    /**
+     * Location of the journal file.
+     */
+    @Value("${employee.async.journal-path:create-jobs.journal}")
+    private String journalPath;
+
+    /**
+     * Whether to force each record to the storage device before acknowledging it.
+     */
+    @Value("${employee.async.journal-sync:false}")
+    private boolean journalSync;
+
+    /**
+     * Duration (in ms) to retain finished jobs, in the journal and in memory.
+     */
+    @Value("${employee.async.retention-ms:86400000}")
+    private long retentionMs;
+
+    @Autowired
+    public CreateJobJournal(@Autowired ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Read back the journal, compact it to the latest record of each retained job and open it for appending.
+     *
+     * @return Latest state of each retained job, keyed by job ID, in submission order.
+     */
+    public synchronized Map<String, CreateJob> replay() {
+        Path path = Paths.get(journalPath);
+        Map<String, CreateJob> jobs = new LinkedHashMap<>();
+        try {
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        readRecord(line, jobs);
+                    }
+                }
+            }
+            long cutoff = System.currentTimeMillis() - retentionMs;
+            jobs.values()
+                .removeIf(job -> isExpired(job, cutoff));
+            compact(path, jobs.values());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return jobs;
+    }
+
+    /**
+     * Rewrite the journal to the given jobs only.
+     * The jobs are obtained while the journal is locked, so no record appended before the snapshot is lost.
+     *
+     * @param jobs Supplier of the latest state of every job to keep.
+     */
+    public synchronized void compact(Supplier<Collection<CreateJob>> jobs) {
+        if (channel == null) {
+            throw new IllegalStateException("Journal has not been replayed yet.");
+        }
+        Path path = Paths.get(journalPath);
+        try {
+            // the old file stays open for appending until the compacted one has replaced it
+            compact(path, jobs.get());
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param cutoff Time (in ms since the epoch) before which finished jobs are no longer retained.
+     * @return True if the job is finished and was last updated before the cutoff.
+     */
+    static boolean isExpired(CreateJob job,
+                             long cutoff) {
+        return job.isDone() && job.getUpdatedAt() < cutoff;
+    }
+
+    /**
+     * @return Duration (in ms) for which finished jobs are retained.
+     */
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    private void readRecord(String line,
+                            Map<String, CreateJob> jobs) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            CreateJob job = mapper.readValue(line, CreateJob.class);
+            jobs.put(job.getId(), job);
+        } catch (IOException e) {
+            // a torn final record is expected after a crash mid-write
+            log.warn("Skipping unreadable journal record", e);
+        }
+    }
+
+    private void compact(Path path,
+                         Collection<CreateJob> jobs) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp,
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.WRITE)) {
+            for (CreateJob job : jobs) {
+                out.write(encode(job));
+            }
+            out.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Append the current state of a job.
+     *
+     * @param job Job to record.
+     */
+    public synchronized void append(CreateJob job) {
+        if (channel == null) {
+            throw new IllegalStateException("Journal has not been replayed yet.");
+        }
+        try {
+            channel.write(encode(job));
+            if (journalSync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer encode(CreateJob job) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(job);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+        buffer.put(json)
+              .put((byte) '\n')
+              .flip();
+        return buffer;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+}
@@ -0,0 +1,301 @@
+package com.example.rqchallenge.employees;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind queue for employee creation.
+ * Submissions are journaled and acknowledged immediately; a bounded pool of workers then drains the queue, each job
+ * through its tenant's rate limiter, so callers are not held open through the create retry backoff.
+ * A client-supplied idempotency key maps repeated submissions onto the original job instead of creating duplicates;
+ * keys are scoped to the tenant, and reusing one with a different body is rejected with IdempotencyKeyReusedException.
+ * Finished jobs, and with them their idempotency keys, are evicted every {@code employee.async.compact-interval-ms}
+ * once older than the journal's retention, and the journal is compacted to the remaining jobs.
+ * Never lazily initialized, so unfinished jobs resume at startup under the fast-start profile too.
+ */
+@Service
+@Lazy(false)
+public class CreateJobQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(CreateJobQueue.class);
+    private final IEmployeeService service;
+    private final CreateJobJournal journal;
+    private final Scheduler blockingScheduler;
+    private final SecureRandom idSource;
+    private final ConcurrentHashMap<String, CreateJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> idempotencyKeys = new ConcurrentHashMap<>();
+    private final Sinks.Many<String> pending = Sinks.many()
+                                                    .unicast()
+                                                    .onBackpressureBuffer();
+    private final AtomicInteger queued = new AtomicInteger();
+    private Disposable workers;
+    private Disposable compaction;
+
+    /**
+     * Maximum number of jobs sent upstream concurrently.
+     */
+    @Value("${employee.async.workers:2}")
+    private int workerCount;
+
+    /**
+     * Maximum number of jobs waiting to be sent upstream before submissions are rejected.
+     */
+    @Value("${employee.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * Time (in ms) between evictions of expired jobs and compactions of the journal.
+     */
+    @Value("${employee.async.compact-interval-ms:3600000}")
+    private long compactIntervalMs;
+
+    /**
+     * Time (in seconds) clients are asked to wait before resubmitting when the queue is full.
+     */
+    @Value("${employee.async.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Autowired
+    public CreateJobQueue(@Autowired IEmployeeService service,
+                          @Autowired CreateJobJournal journal,
+                          @Autowired Scheduler blockingScheduler) {
+        this.service = service;
+        this.journal = journal;
+        this.blockingScheduler = blockingScheduler;
+        this.idSource = newIdSource();
+    }
+
+    /**
+     * Tracking IDs must not be guessable, but submissions run on the event loop, where the default SecureRandom
+     * would read the system entropy source for every ID. A DRBG seeded once here, at startup, only reads it for
+     * that seed.
+     */
+    private static SecureRandom newIdSource() {
+        try {
+            SecureRandom idSource = SecureRandom.getInstance("DRBG");
+            // seeding is lazy, so draw once to take it here
+            idSource.nextBytes(new byte[1]);
+            return idSource;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No DRBG available for job tracking IDs", e);
+        }
+    }
+
+    /**
+     * @return New random (version 4) UUID as a job tracking ID.
+     */
+    private String newJobId() {
+        byte[] bytes = new byte[16];
+        idSource.nextBytes(bytes);
+        bytes[6] = (byte) (bytes[6] & 0x0f | 0x40);
+        bytes[8] = (byte) (bytes[8] & 0x3f | 0x80);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    /**
+     * Restore jobs from the journal, re-queue any that were not finished and start the workers.
+     * A job which was RUNNING when the process stopped is attempted again, since we cannot know whether the upstream
+     * call completed.
+     */
+    @PostConstruct
+    public void start() {
+        journal.replay()
+               .values()
+               .forEach(job -> {
+                   jobs.put(job.getId(), job);
+                   if (job.getIdempotencyKey() != null) {
+                       idempotencyKeys.put(scopedKey(tenantOf(job), job.getIdempotencyKey()), job.getId());
+                   }
+                   if (!job.isDone()) {
+                       queued.incrementAndGet();
+                       enqueue(job.getId());
+                   }
+               });
+        workers = pending.asFlux()
+                         .flatMap(this::execute, workerCount)
+                         .subscribe();
+        compaction = Flux.interval(Duration.ofMillis(compactIntervalMs), blockingScheduler)
+                         .onBackpressureDrop()
+                         .subscribe(tick -> evict());
+        log.info("Create job queue started with {} pending job(s)", queued.get());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workers != null) {
+            workers.dispose();
+        }
+        if (compaction != null) {
+            compaction.dispose();
+        }
+    }
+
+    /**
+     * Forget finished jobs older than the retention, with their idempotency keys, and compact the journal to the
+     * jobs which remain. Blocking.
+     */
+    void evict() {
+        long cutoff = System.currentTimeMillis() - journal.getRetentionMs();
+        int evicted = 0;
+        for (CreateJob job : jobs.values()) {
+            // conditional removal, in case the job moved on since it was read
+            if (CreateJobJournal.isExpired(job, cutoff) && jobs.remove(job.getId(), job)) {
+                if (job.getIdempotencyKey() != null) {
+                    idempotencyKeys.remove(scopedKey(tenantOf(job), job.getIdempotencyKey()), job.getId());
+                }
+                evicted++;
+            }
+        }
+        try {
+            journal.compact(() -> {
+                List<CreateJob> retained = new ArrayList<>(jobs.values());
+                retained.sort(Comparator.comparingLong(CreateJob::getSubmittedAt));
+                return retained;
+            });
+            log.debug("Evicted {} finished create job(s), {} retained", evicted, jobs.size());
+        } catch (RuntimeException e) {
+            log.error("Could not compact the create job journal", e);
+        }
+    }
+
+    /**
+     * Accept an employee creation for asynchronous processing, for the tenant of the subscriber's context.
+     *
+     * @param input          Map of intended employee data.
+     * @param idempotencyKey Client-supplied key, may be null.
+     * @return Newly accepted job, or the existing job if the idempotency key has been seen before with the same
+     * input; IdempotencyKeyReusedException if it was seen with different input, QueueFullException if the queue
+     * is full.
+     */
+    public Mono<CreateJob> submit(Map<String, Object> input,
+                                  String idempotencyKey) {
+        return Mono.deferContextual(context -> submit(TenantRegistry.tenantName(context), input, idempotencyKey));
+    }
+
+    private Mono<CreateJob> submit(String tenant,
+                                   Map<String, Object> input,
+                                   String idempotencyKey) {
+        String scopedKey = idempotencyKey == null ? null : scopedKey(tenant, idempotencyKey);
+        Optional<CreateJob> existing = findByIdempotencyKey(scopedKey);
+        if (existing.isPresent()) {
+            return repeated(existing.get(), input, idempotencyKey);
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            return Mono.error(new QueueFullException(retryAfterSeconds));
+        }
+        CreateJob job = CreateJob.pending(newJobId(), tenant, idempotencyKey, input);
+        jobs.put(job.getId(), job);
+        if (scopedKey != null && idempotencyKeys.putIfAbsent(scopedKey, job.getId()) != null) {
+            // lost a race with a concurrent submission using the same key
+            jobs.remove(job.getId());
+            queued.decrementAndGet();
+            return Mono.justOrEmpty(findByIdempotencyKey(scopedKey))
+                       .flatMap(winner -> repeated(winner, input, idempotencyKey));
+        }
+        return record(job).doOnNext(accepted -> enqueue(accepted.getId()))
+                          .doOnError(e -> {
+                              jobs.remove(job.getId());
+                              if (scopedKey != null) {
+                                  idempotencyKeys.remove(scopedKey, job.getId());
+                              }
+                              queued.decrementAndGet();
+                          });
+    }
+
+    /**
+     * @return The job a repeated submission maps onto, provided it repeats the same input.
+     */
+    private static Mono<CreateJob> repeated(CreateJob job,
+                                            Map<String, Object> input,
+                                            String idempotencyKey) {
+        if (!Objects.equals(job.getInput(), input)) {
+            return Mono.error(new IdempotencyKeyReusedException(idempotencyKey));
+        }
+        return Mono.just(job);
+    }
+
+    /**
+     * @param tenant Tenant asking for the job.
+     * @param jobId  Tracking ID returned on submission.
+     * @return Current state of the job, Empty if the ID is not known to the tenant.
+     */
+    public Optional<CreateJob> getJob(String tenant,
+                                      String jobId) {
+        return Optional.ofNullable(jobs.get(jobId))
+                       .filter(job -> tenantOf(job).equals(tenant));
+    }
+
+    private static String tenantOf(CreateJob job) {
+        return job.getTenant() == null ? TenantRegistry.DEFAULT_TENANT : job.getTenant();
+    }
+
+    private static String scopedKey(String tenant,
+                                    String idempotencyKey) {
+        return tenant + ':' + idempotencyKey;
+    }
+
+    private Optional<CreateJob> findByIdempotencyKey(String scopedKey) {
+        return Optional.ofNullable(scopedKey)
+                       .map(idempotencyKeys::get)
+                       .map(jobs::get);
+    }
+
+    private synchronized void enqueue(String jobId) {
+        // synchronized since the sink does not accept concurrent emissions
+        pending.emitNext(jobId, Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    private Mono<CreateJob> execute(String jobId) {
+        CreateJob job = jobs.get(jobId);
+        return record(job.running())
+                .then(Mono.defer(() -> service.createEmployee(job.getInput()))
+                          // workers run outside of any request, so restore the submitter's tenant, and nobody is
+                          // waiting on the upstream call
+                          .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, tenantOf(job))
+                                                          .put(UpstreamScheduler.LANE_CONTEXT_KEY,
+                                                               UpstreamScheduler.Lane.BACKGROUND)))
+                .map(job::succeeded)
+                .onErrorResume(e -> Mono.just(job.failed(e.getMessage())))
+                .flatMap(this::record)
+                .onErrorResume(e -> {
+                    log.error("Could not journal result of create job {}", jobId, e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> queued.decrementAndGet());
+    }
+
+    private Mono<CreateJob> record(CreateJob job) {
+        jobs.put(job.getId(), job);
+        return Mono.fromRunnable(() -> journal.append(job))
+                   .subscribeOn(blockingScheduler)
+                   .thenReturn(job);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.example.rqchallenge.employees;
+
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * End-to-end time budget of a request, carried through the Reactor context so that upstream calls and their retries
+ * can stop once nobody is waiting for the answer any more.
+ *
+ * @see DeadlineWebFilter
+ */
+public final class Deadline {
+
+    /**
+     * Reactor context key under which the request's Deadline is stored.
+     */
+    public static final Class<Deadline> CONTEXT_KEY = Deadline.class;
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * @param budget Time allowed from now.
+     * @return Deadline expiring after the budget.
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @param context Reactor context of the current subscriber.
+     * @return Deadline of the current request, Empty if the caller has none (e.g. background work).
+     */
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @param wait Time that would be spent before the next piece of work starts.
+     * @return True if there is budget left after waiting.
+     */
+    public boolean allows(Duration wait) {
+        return expiresAtNanos - System.nanoTime() > wait.toNanos();
+    }
+
+}
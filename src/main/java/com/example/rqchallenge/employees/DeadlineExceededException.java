@@ -0,0 +1,13 @@
+package com.example.rqchallenge.employees;
+
+/**
+ * The request's {@link Deadline} passed, or would pass, before the back-end API could answer.
+ * Deliberately not a {@link ServiceException}, so that it is never retried.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException() {
+        super("The request deadline was exceeded.");
+    }
+
+}
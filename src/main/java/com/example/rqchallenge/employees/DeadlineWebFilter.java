@@ -0,0 +1,54 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Establishes the {@link Deadline} of each inbound request, taken from the {@value #TIMEOUT_HEADER} header (a
+ * relative budget in milliseconds) or from the configured default, capped at the configured maximum.
+ */
+@Component
+public class DeadlineWebFilter implements WebFilter {
+
+    static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    /**
+     * Budget (in ms) given to requests which do not send the header.
+     */
+    @Value("${employee.deadline.default-ms:30000}")
+    private long defaultMs;
+
+    /**
+     * Largest budget (in ms) a client may ask for.
+     */
+    @Value("${employee.deadline.max-ms:120000}")
+    private long maxMs;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange,
+                             WebFilterChain chain) {
+        Deadline deadline = Deadline.after(Duration.ofMillis(budgetMs(exchange.getRequest()
+                                                                              .getHeaders()
+                                                                              .getFirst(TIMEOUT_HEADER))));
+        return chain.filter(exchange)
+                    .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, deadline));
+    }
+
+    private long budgetMs(String header) {
+        if (header != null) {
+            try {
+                return Math.max(0, Math.min(maxMs, Long.parseLong(header.trim())));
+            } catch (NumberFormatException e) {
+                // fall back to the default for a malformed header rather than rejecting the request
+            }
+        }
+        return Math.min(defaultMs, maxMs);
+    }
+
+}
@@ -3,12 +3,18 @@ package com.example.rqchallenge.employees;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Employee domain/model class.
  */
 public class Employee {
 
+    /**
+     * Pool for the string fields of employees decoded from the back-end, shared across refreshes.
+     */
+    static final StringPool STRINGS = new StringPool(16);
+
     private int id;
     private String name;
     private int salary;
@@ -87,30 +93,64 @@ public class Employee {
         this.profileImage = profileImage;
     }
 
+    /**
+     * Employees are equal when all their fields are, i.e. the back-end has not changed the record.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Employee other = (Employee) o;
+        return id == other.id
+                && salary == other.salary
+                && age == other.age
+                && Objects.equals(name, other.name)
+                && Objects.equals(profileImage, other.profileImage);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, salary, age, profileImage);
+    }
+
     /**
      * Helper method to parse singular Employee object from map of name-value pairs using the
      * 'output' naming convention ('employee_name', 'salary' etc.).
+     * Names and image paths are canonicalized through {@link #STRINGS}, so an unchanged value decoded again on a
+     * roster refresh reuses the instance already cached.
      *
      * @param input Map of name value pairs
      * @return Employee
      */
     public static Employee fromMapOutput(Map<String, Object> input) {
         Employee employee = new Employee();
-        employee.setName((String) input.get("employee_name"));
+        employee.setName(STRINGS.canonical((String) input.get("employee_name")));
         employee.setSalary((int) input.get("employee_salary"));
         employee.setAge((int) input.get("employee_age"));
-        employee.setProfileImage((String) input.get("profile_image"));
+        employee.setProfileImage(STRINGS.canonical((String) input.get("profile_image")));
         Object id = input.get("id");
         employee.setId(id == null ? 0 : Integer.parseInt(id + ""));
         return employee;
     }
 
+    /**
+     * Helper method to parse the Employee returned on creation, using the 'create' naming convention ('name',
+     * 'salary' etc.).
+     * Like {@link #fromMapOutput(Map)}, canonicalizes names and image paths, as created employees are cached too.
+     *
+     * @param input Map of name value pairs
+     * @return Employee
+     */
     public static Employee fromMapOutputCreate(Map<String, Object> input) {
         Employee employee = new Employee();
-        employee.setName((String) input.get("name"));
+        employee.setName(STRINGS.canonical((String) input.get("name")));
         employee.setSalary(toInt(input.get("salary")));
         employee.setAge((toInt(input.get("age"))));
-        employee.setProfileImage((String) input.get("profile_image"));
+        employee.setProfileImage(STRINGS.canonical((String) input.get("profile_image")));
         employee.setId(toInt(input.get("id")));
         return employee;
     }
@@ -7,9 +7,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
 
 /**
  * {@inheritDoc}
@@ -19,6 +26,14 @@ import java.util.Map;
 @RestController
 public class EmployeeController implements IEmployeeController {
 
+    /**
+     * Order of employees indexed by roster position in which {@link #topBySalary} drops them: lowest salary first,
+     * and latest in the roster among equal salaries.
+     */
+    private static final Comparator<Tuple2<Long, Employee>> DROP_ORDER =
+            Comparator.comparingInt(EmployeeController::salary)
+                      .thenComparing(Tuple2::getT1, Comparator.reverseOrder());
+
     private final IEmployeeService service;
 
     public EmployeeController(@Autowired IEmployeeService employeeService) {
@@ -54,12 +69,56 @@ public class EmployeeController implements IEmployeeController {
      */
     @Override
     public Mono<Employee> getEmployeeById(@PathVariable String id) {
-        int intId = Integer.parseInt(id);
+        int intId = EmployeeIds.parse(id);
         return service.getEmployeeById(intId)
+                      .transform(StageTrace.stage("service"))
                       .flatMap(x -> x.map(Mono::just)
                                      .orElseThrow(() -> new IdNotFoundException(intId)));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see IEmployeeController#getEmployeesByIds(String)
+     */
+    @Override
+    public Flux<Employee> getEmployeesByIds(String ids) {
+        return service.getEmployeesByIds(parseIds(Arrays.asList(ids.split(","))));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see IEmployeeController#getEmployeesByIdList(List)
+     */
+    @Override
+    public Flux<Employee> getEmployeesByIdList(List<String> ids) {
+        return service.getEmployeesByIds(parseIds(ids));
+    }
+
+    private static List<Integer> parseIds(Collection<String> ids) {
+        return ids.stream()
+                  .map(String::trim)
+                  .filter(id -> !id.isEmpty())
+                  .map(EmployeeIds::parse)
+                  .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see IEmployeeController#queryEmployees(Integer, Integer, Integer, Integer, String, Integer)
+     */
+    @Override
+    public Flux<Employee> queryEmployees(Integer salaryMin,
+                                         Integer salaryMax,
+                                         Integer ageMin,
+                                         Integer ageMax,
+                                         String nameContains,
+                                         Integer limit) {
+        return service.queryEmployees(new EmployeeQuery(salaryMin, salaryMax, ageMin, ageMax, nameContains, limit));
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -79,11 +138,37 @@ public class EmployeeController implements IEmployeeController {
      */
     @Override
     public Flux<String> getTopTenHighestEarningEmployeeNames() {
-        return service.getAllEmployees()
-                      .sort(Comparator.comparingInt(Employee::getSalary)
-                                      .reversed())
-                      .take(10)
-                      .map(Employee::getName);
+        return topBySalary(service.getAllEmployees(), 10).map(Employee::getName);
+    }
+
+    /**
+     * Highest earners, holding only the current top {@code k} rather than sorting the whole roster.
+     * Equal salaries keep roster order, as a stable sort would.
+     *
+     * @param employees Employees in roster order.
+     * @param k         Number of employees to return.
+     * @return Up to k employees, highest salary first.
+     */
+    static Flux<Employee> topBySalary(Flux<Employee> employees,
+                                      int k) {
+        return employees.index()
+                        .collect(() -> new PriorityQueue<Tuple2<Long, Employee>>(k + 1, DROP_ORDER), (top, employee) -> {
+                            top.add(employee);
+                            if (top.size() > k) {
+                                top.poll();
+                            }
+                        })
+                        .flatMapIterable(top -> {
+                            List<Tuple2<Long, Employee>> sorted = new ArrayList<>(top);
+                            sorted.sort(DROP_ORDER.reversed());
+                            return sorted;
+                        })
+                        .map(Tuple2::getT2);
+    }
+
+    private static int salary(Tuple2<Long, Employee> indexed) {
+        return indexed.getT2()
+                      .getSalary();
     }
 
     /**
@@ -103,7 +188,7 @@ public class EmployeeController implements IEmployeeController {
      */
     @Override
     public Mono<String> deleteEmployeeById(String id) {
-        return service.deleteEmployeeById(Integer.parseInt(id));
+        return service.deleteEmployeeById(EmployeeIds.parse(id));
     }
 
 }
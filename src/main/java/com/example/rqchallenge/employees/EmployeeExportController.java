@@ -0,0 +1,169 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Streams the whole roster as CSV or NDJSON, for clients such as spreadsheet exports which may read it slowly.
+ * The export follows the client's demand end to end: employees are read from the cache in chunks of
+ * {@code employee.export.chunk-size} as the connection drains, encoded into batches of about
+ * {@code employee.export.batch-bytes}, and each batch is flushed before the next is requested. Memory held for one
+ * connection is therefore a few batches and chunks, whatever the size of the roster.
+ * The export reads one cache generation: a bulk refresh during the export replaces the cached shards without
+ * affecting the ones being read.
+ */
+@RestController
+public class EmployeeExportController {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    private static final byte[] CSV_HEADER = "id,name,salary,age,profileImage\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final IEmployeeService service;
+    private final ObjectMapper mapper;
+
+    /**
+     * Number of employees requested from the cache at a time.
+     */
+    @Value("${employee.export.chunk-size:256}")
+    private int chunkSize;
+
+    /**
+     * Size (in bytes) at which an encoded batch is written and flushed to the client.
+     */
+    @Value("${employee.export.batch-bytes:16384}")
+    private int batchBytes;
+
+    public EmployeeExportController(@Autowired IEmployeeService service,
+                                    @Autowired ObjectMapper mapper) {
+        this.service = service;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Export all employees.
+     *
+     * @param format   "csv" (the default) or "ndjson".
+     * @param response Response to stream the export to.
+     * @return Completion of the export.
+     */
+    @GetMapping("/export")
+    public Mono<Void> exportEmployees(@RequestParam(defaultValue = "csv") String format,
+                                      ServerHttpResponse response) {
+        Flux<byte[]> rows;
+        String filename;
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv":
+                response.getHeaders()
+                        .setContentType(TEXT_CSV);
+                rows = Flux.concat(Mono.just(CSV_HEADER), encode(EmployeeExportController::csvRow));
+                filename = "employees.csv";
+                break;
+            case "ndjson":
+                response.getHeaders()
+                        .setContentType(MediaType.APPLICATION_NDJSON);
+                rows = encode(this::jsonRow);
+                filename = "employees.ndjson";
+                break;
+            default:
+                return Mono.error(new UnsupportedExportFormatException(format));
+        }
+        response.getHeaders()
+                .setContentDisposition(ContentDisposition.attachment()
+                                                         .filename(filename)
+                                                         .build());
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        // a batch is only copied into a buffer once the response subscribes to it, so none is left over on cancel
+        return response.writeAndFlushWith(batches(rows).map(batch -> Mono.fromSupplier(() -> join(bufferFactory, batch))));
+    }
+
+    private Flux<byte[]> encode(Function<Employee, byte[]> encoder) {
+        return service.getAllEmployees()
+                      .limitRate(chunkSize)
+                      .map(encoder);
+    }
+
+    /**
+     * Group rows into batches of at least {@link #batchBytes}, the last possibly smaller.
+     */
+    private Flux<List<byte[]>> batches(Flux<byte[]> rows) {
+        return Flux.defer(() -> {
+            long[] pending = new long[1];
+            return rows.bufferUntil(row -> {
+                pending[0] += row.length;
+                if (pending[0] < batchBytes) {
+                    return false;
+                }
+                pending[0] = 0;
+                return true;
+            });
+        });
+    }
+
+    private static DataBuffer join(DataBufferFactory bufferFactory,
+                                   List<byte[]> batch) {
+        int size = 0;
+        for (byte[] row : batch) {
+            size += row.length;
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(size);
+        batch.forEach(buffer::write);
+        return buffer;
+    }
+
+    private static byte[] csvRow(Employee employee) {
+        return (employee.getId() + "," + csvField(employee.getName()) + "," + employee.getSalary() + ","
+                + employee.getAge() + "," + csvField(employee.getProfileImage()) + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The value quoted as RFC 4180 requires, if it contains a separator, quote or line break; a value which a
+     * spreadsheet would take for a formula is first prefixed with an apostrophe, so that it is shown as text.
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    private byte[] jsonRow(Employee employee) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(employee);
+            byte[] row = new byte[json.length + 1];
+            System.arraycopy(json, 0, row, 0, json.length);
+            row[json.length] = '\n';
+            return row;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
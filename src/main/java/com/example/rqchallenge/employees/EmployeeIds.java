@@ -0,0 +1,49 @@
+package com.example.rqchallenge.employees;
+
+/**
+ * Parses employee IDs from request paths and parameters.
+ * Equivalent to {@link Integer#parseInt(String)} for ASCII input, but rejects malformed IDs with the shared
+ * {@link InvalidIdException} instead of allocating a NumberFormatException with a stack trace.
+ */
+final class EmployeeIds {
+
+    private EmployeeIds() {
+        // intentionally empty
+    }
+
+    /**
+     * @param id Decimal integer, optionally signed.
+     * @return Parsed ID.
+     * @throws InvalidIdException If the ID is not a decimal integer in the range of int.
+     */
+    static int parse(String id) {
+        int length = id == null ? 0 : id.length();
+        if (length == 0) {
+            throw InvalidIdException.INSTANCE;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = id.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) {
+                throw InvalidIdException.INSTANCE;
+            }
+            negative = first == '-';
+            i = 1;
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                throw InvalidIdException.INSTANCE;
+            }
+            value = value * 10 + (c - '0');
+            if (value > limit) {
+                throw InvalidIdException.INSTANCE;
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+}
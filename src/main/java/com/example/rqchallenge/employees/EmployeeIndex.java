@@ -0,0 +1,252 @@
+package com.example.rqchallenge.employees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, in-memory index over one roster snapshot, answering {@link EmployeeQuery} filters without scanning the
+ * roster whenever a filter can use an index.
+ * Salary and age are indexed as positions sorted by value, so a range is two binary searches; names are indexed by
+ * the trigrams (three character substrings) they contain. Candidate sets are intersected as bitmaps over roster
+ * positions, most selective first, and the survivors are checked against the full query.
+ */
+class EmployeeIndex {
+
+    /**
+     * An index whose candidate set is this many times larger than the best one is not worth materialising; its
+     * filter is applied to the survivors instead.
+     */
+    private static final int INTERSECT_RATIO = 8;
+
+    private final Employee[] employees;
+    private final int[] bySalary;
+    private final int[] salaries;
+    private final int[] byAge;
+    private final int[] ages;
+    private final Map<Long, int[]> trigrams;
+    private final long version;
+
+    /**
+     * @param roster  Employees, in the order results should be returned.
+     * @param version Version of the cache the roster was read from.
+     */
+    EmployeeIndex(List<Employee> roster,
+                  long version) {
+        this.employees = roster.toArray(new Employee[0]);
+        this.version = version;
+        this.bySalary = sortedPositions(Employee::getSalary);
+        this.salaries = valuesOf(bySalary, Employee::getSalary);
+        this.byAge = sortedPositions(Employee::getAge);
+        this.ages = valuesOf(byAge, Employee::getAge);
+        this.trigrams = indexTrigrams();
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        return employees.length;
+    }
+
+    private interface IntField {
+        int of(Employee employee);
+    }
+
+    private int[] sortedPositions(IntField field) {
+        Integer[] positions = new Integer[employees.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, Comparator.comparingInt(i -> field.of(employees[i])));
+        return Arrays.stream(positions)
+                     .mapToInt(Integer::intValue)
+                     .toArray();
+    }
+
+    private int[] valuesOf(int[] positions,
+                           IntField field) {
+        int[] values = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            values[i] = field.of(employees[positions[i]]);
+        }
+        return values;
+    }
+
+    private static long trigram(String s,
+                                int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    private Map<Long, int[]> indexTrigrams() {
+        Map<Long, int[]> postings = new HashMap<>();
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int position = 0; position < employees.length; position++) {
+            String name = employees[position].getName();
+            if (name == null) {
+                continue;
+            }
+            for (int offset = 0; offset + 3 <= name.length(); offset++) {
+                long key = trigram(name, offset);
+                int[] list = postings.get(key);
+                int count = counts.getOrDefault(key, 0);
+                // positions are added in ascending order, so a repeated trigram within a name is the last entry
+                if (list != null && count > 0 && list[count - 1] == position) {
+                    continue;
+                }
+                if (list == null) {
+                    list = new int[4];
+                } else if (count == list.length) {
+                    list = Arrays.copyOf(list, count * 2);
+                }
+                list[count] = position;
+                postings.put(key, list);
+                counts.put(key, count + 1);
+            }
+        }
+        postings.replaceAll((key, list) -> Arrays.copyOf(list, counts.get(key)));
+        return postings;
+    }
+
+    /**
+     * One way of narrowing the roster: an estimated candidate count, known before the bitmap is built.
+     */
+    private static class Candidates {
+
+        private final int estimate;
+        private final Supplier<BitSet> bitmap;
+
+        private Candidates(int estimate,
+                           Supplier<BitSet> bitmap) {
+            this.estimate = estimate;
+            this.bitmap = bitmap;
+        }
+
+    }
+
+    private Candidates range(int[] positions,
+                             int[] values,
+                             Integer min,
+                             Integer max) {
+        int from = min == null ? 0 : firstAtLeast(values, min);
+        int to = max == null ? values.length : firstAtLeast(values, max + 1L);
+        int count = Math.max(0, to - from);
+        return new Candidates(count, () -> {
+            BitSet bitmap = new BitSet(employees.length);
+            for (int i = from; i < to; i++) {
+                bitmap.set(positions[i]);
+            }
+            return bitmap;
+        });
+    }
+
+    private static int firstAtLeast(int[] values,
+                                    long bound) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < bound) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Positions whose name contains every trigram of the search string, a superset of the actual matches.
+     */
+    private Candidates name(String search) {
+        List<int[]> lists = new ArrayList<>();
+        for (int offset = 0; offset + 3 <= search.length(); offset++) {
+            int[] list = trigrams.get(trigram(search, offset));
+            if (list == null) {
+                return new Candidates(0, BitSet::new);
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        return new Candidates(lists.get(0).length, () -> {
+            BitSet bitmap = bitmapOf(lists.get(0));
+            for (int i = 1; i < lists.size() && !bitmap.isEmpty(); i++) {
+                bitmap.and(bitmapOf(lists.get(i)));
+            }
+            return bitmap;
+        });
+    }
+
+    private BitSet bitmapOf(int[] positions) {
+        BitSet bitmap = new BitSet(employees.length);
+        for (int position : positions) {
+            bitmap.set(position);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Plan and run a query: candidate sets from the applicable indexes are ordered by estimated size, the smallest
+     * is materialised and intersected with any others of comparable size, and the survivors are checked against the
+     * whole query. Only a query no index applies to (e.g. a name search shorter than a trigram alone) scans.
+     *
+     * @param limit Maximum number of employees returned.
+     * @return Matching employees in roster order.
+     */
+    List<Employee> query(EmployeeQuery query,
+                         int limit) {
+        List<Candidates> plan = new ArrayList<>(3);
+        if (query.hasSalaryRange()) {
+            plan.add(range(bySalary, salaries, query.getSalaryMin(), query.getSalaryMax()));
+        }
+        if (query.hasAgeRange()) {
+            plan.add(range(byAge, ages, query.getAgeMin(), query.getAgeMax()));
+        }
+        if (query.getNameContains() != null && query.getNameContains()
+                                                     .length() >= 3) {
+            plan.add(name(query.getNameContains()));
+        }
+        List<Employee> result = new ArrayList<>(Math.min(limit, 64));
+        if (limit <= 0) {
+            return result;
+        }
+        if (plan.isEmpty()) {
+            collect(query, limit, i -> i + 1, 0, result);
+            return result;
+        }
+        plan.sort(Comparator.comparingInt(candidates -> candidates.estimate));
+        int best = plan.get(0).estimate;
+        if (best == 0) {
+            return result;
+        }
+        BitSet bitmap = plan.get(0).bitmap.get();
+        for (int i = 1; i < plan.size() && !bitmap.isEmpty(); i++) {
+            if (plan.get(i).estimate > (long) best * INTERSECT_RATIO) {
+                break;
+            }
+            bitmap.and(plan.get(i).bitmap.get());
+        }
+        collect(query, limit, i -> bitmap.nextSetBit(i + 1), bitmap.nextSetBit(0), result);
+        return result;
+    }
+
+    private void collect(EmployeeQuery query,
+                         int limit,
+                         IntUnaryOperator next,
+                         int first,
+                         List<Employee> result) {
+        for (int i = first; i >= 0 && i < employees.length && result.size() < limit; i = next.applyAsInt(i)) {
+            if (query.matches(employees[i])) {
+                result.add(employees[i]);
+            }
+        }
+    }
+
+}
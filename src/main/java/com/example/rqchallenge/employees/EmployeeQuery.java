@@ -0,0 +1,85 @@
+package com.example.rqchallenge.employees;
+
+/**
+ * Filter for {@link IEmployeeService#queryEmployees(EmployeeQuery)}; every bound is optional and inclusive.
+ */
+public class EmployeeQuery {
+
+    private final Integer salaryMin;
+    private final Integer salaryMax;
+    private final Integer ageMin;
+    private final Integer ageMax;
+    private final String nameContains;
+    private final Integer limit;
+
+    /**
+     * @param salaryMin    Lowest salary, may be null.
+     * @param salaryMax    Highest salary, may be null.
+     * @param ageMin       Lowest age, may be null.
+     * @param ageMax       Highest age, may be null.
+     * @param nameContains Case-sensitive name search, may be null.
+     * @param limit        Maximum number of employees returned, may be null for the service default.
+     */
+    public EmployeeQuery(Integer salaryMin,
+                         Integer salaryMax,
+                         Integer ageMin,
+                         Integer ageMax,
+                         String nameContains,
+                         Integer limit) {
+        this.salaryMin = salaryMin;
+        this.salaryMax = salaryMax;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+        this.nameContains = nameContains == null || nameContains.isEmpty() ? null : nameContains;
+        this.limit = limit;
+    }
+
+    public Integer getSalaryMin() {
+        return salaryMin;
+    }
+
+    public Integer getSalaryMax() {
+        return salaryMax;
+    }
+
+    public Integer getAgeMin() {
+        return ageMin;
+    }
+
+    public Integer getAgeMax() {
+        return ageMax;
+    }
+
+    public String getNameContains() {
+        return nameContains;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public boolean hasSalaryRange() {
+        return salaryMin != null || salaryMax != null;
+    }
+
+    public boolean hasAgeRange() {
+        return ageMin != null || ageMax != null;
+    }
+
+    /**
+     * @return True if the employee satisfies every filter.
+     */
+    public boolean matches(Employee employee) {
+        return within(employee.getSalary(), salaryMin, salaryMax)
+                && within(employee.getAge(), ageMin, ageMax)
+                && (nameContains == null || employee.getName() != null && employee.getName()
+                                                                                  .contains(nameContains));
+    }
+
+    private static boolean within(int value,
+                                  Integer min,
+                                  Integer max) {
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+}
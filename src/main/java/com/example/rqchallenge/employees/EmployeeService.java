@@ -1,5 +1,7 @@
 package com.example.rqchallenge.employees;
 
+import com.example.rqchallenge.employees.UpstreamScheduler.Lane;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,16 +9,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
-import java.time.Duration;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -30,38 +35,49 @@ import static java.lang.String.format;
 public class EmployeeService implements IEmployeeService {
 
     private static final Logger log = LoggerFactory.getLogger(EmployeeService.class);
-    private final WebClient client;
-    private final FluxCache<Integer, Employee> cache;
+    private final TenantRegistry tenants;
+    private final RetryPolicy retryPolicy;
+    private final MeterRegistry meterRegistry;
+    /**
+     * Latest query index build of each tenant's roster, by tenant name.
+     */
+    private final ConcurrentHashMap<String, IndexBuild> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Fraction of a batch which must miss the cache before the misses are resolved with one roster fetch.
+     */
+    @Value("${employee.batch.bulk-miss-ratio:0.5}")
+    private double batchBulkMissRatio;
 
     /**
-     * Maximum number of retries to attempt for a GET operation.
+     * Maximum number of individual fetches in flight for one batch.
      */
-    @Value("${employee.retry.get.max:3}")
-    private int retryGetMax;
+    @Value("${employee.batch.concurrency:8}")
+    private int batchConcurrency;
 
     /**
-     * Duration (in ms) to wait on average between GET retries.
+     * Maximum number of IDs accepted in one batch.
      */
-    @Value("${employee.retry.get.duration.ms:2200}")
-    private int retryGetDurationMs;
+    @Value("${employee.batch.max-ids:1000}")
+    private int batchMaxIds;
 
     /**
-     * Duration (in ms) to wait on average between non-idempotent retries.
+     * Number of employees a query returns when it does not set a limit.
      */
-    @Value("${employee.retry.change.duration.ms:2200}")
-    private int retryChangeDurationMs;
+    @Value("${employee.query.default-limit:100}")
+    private int queryDefaultLimit;
 
     /**
-     * Maximum number of retires to attempt for non-idempotent operations.
+     * Maximum number of employees a query may return.
      */
-    @Value("${employee.retry.change.max:5}")
-    private int retryChangeMax;
+    @Value("${employee.query.max-limit:1000}")
+    private int queryMaxLimit;
 
     /**
-     * Message to return on retry exhaustion.
+     * Minimum time (in ms) between index rebuilds; queries within it may miss the latest cache changes.
      */
-    @Value("${employee.retry.message:The operation could not be completed after several attempts.  We apologize for the inconvenience, please try again later.}")
-    private String retryMessage;
+    @Value("${employee.query.min-rebuild-interval-ms:1000}")
+    private long queryMinRebuildIntervalMs;
 
     /**
      * Message to return on general service unavailability.
@@ -70,10 +86,12 @@ public class EmployeeService implements IEmployeeService {
     private String unavailableMessage;
 
     @Autowired
-    public EmployeeService(@Autowired WebClient client,
-                           @Autowired FluxCache<Integer, Employee> cache) {
-        this.client = client;
-        this.cache = cache;
+    public EmployeeService(@Autowired TenantRegistry tenants,
+                           @Autowired RetryPolicy retryPolicy,
+                           @Autowired MeterRegistry meterRegistry) {
+        this.tenants = tenants;
+        this.retryPolicy = retryPolicy;
+        this.meterRegistry = meterRegistry;
     }
 
 
@@ -84,23 +102,81 @@ public class EmployeeService implements IEmployeeService {
      */
     @Override
     public Flux<Employee> getAllEmployees() {
-        return cache.cacheUpstreamBulk() // upstream cache access
-                    .orElseGet(() -> client.get()
-                                           .uri("/employees")
-                                           .retrieve()
-                                           .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals,
-                                                     response -> response.bodyToMono(String.class)
-                                                                         .map(b -> new ServiceException(
-                                                                                 unavailableMessage)))
-                                           .bodyToMono(ApiResponse.<List<Map<String, Object>>>type())
-                                           .map(ApiResponse::getData)
-                                           .flatMap(list -> Mono.just(list.stream()
-                                                                          .map(Employee::fromMapOutput)
-                                                                          .collect(Collectors.toList())))
-                                           // downstream cache access
-                                           .transform(list -> cache.cacheDownstreamBulk(list, Employee::getId))
-                                           // convert Mono<List<T> to Flux<T>
-                                           .flatMapIterable(list -> list));
+        return Flux.deferContextual(context -> getAllEmployees(tenants.resolve(context)));
+    }
+
+    private Flux<Employee> getAllEmployees(Tenant tenant) {
+        return tenant.getCache()
+                     .cacheUpstreamBulk() // upstream cache access
+                     .orElseGet(() -> fetchAllEmployees(tenant));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see IEmployeeService#refreshAllEmployees()
+     */
+    @Override
+    public Mono<List<Employee>> refreshAllEmployees() {
+        return Mono.deferContextual(context -> {
+            Tenant tenant = tenants.resolve(context);
+            return fetchAllEmployees(tenant).collectList()
+                                            .doOnNext(list -> tenant.getCache()
+                                                                    .renewThrottle());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see IEmployeeService#loadAllEmployees(List, long)
+     */
+    @Override
+    public Mono<Void> loadAllEmployees(List<Employee> employees,
+                                       long loadedAt) {
+        return Mono.deferContextual(context -> {
+            Tenant tenant = tenants.resolve(context);
+            return tenant.getCache()
+                         .cacheDownstreamBulk(Mono.just(employees), Employee::getId)
+                         .doOnNext(list -> {
+                             rebuildNegativeCache(tenant, list);
+                             tenant.getCache()
+                                   .renewThrottle(loadedAt);
+                         })
+                         .then();
+        });
+    }
+
+    /**
+     * Load the tenant's full roster from its back-end, bypassing (and then refreshing) its cache.
+     */
+    private Flux<Employee> fetchAllEmployees(Tenant tenant) {
+        return upstream(tenant, deadline -> limited(tenant, "employees", Lane.BULK, tenant.getClient()
+                                                                                          .get()
+                                                                                          .uri("/employees")
+                                                                                          .retrieve()
+                                                                                          .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals, this::throttled)
+                                                                                          .onStatus(HttpStatus::is5xxServerError, this::unavailable)
+                                                                                          .bodyToMono(ApiResponse.<List<Map<String, Object>>>type()))
+                .transform(retryPolicy.retry(tenant.getRetryBudget(), "roster", deadline)))
+                .map(ApiResponse::getData)
+                .transform(StageTrace.map("map", (List<Map<String, Object>> list) -> list.stream()
+                                                                                         .map(Employee::fromMapOutput)
+                                                                                         .collect(Collectors.toList())))
+                // downstream cache access, merging local writes the roster does not reflect yet
+                .transform(list -> tenant.getCache()
+                                         .cacheDownstreamBulk(list, Employee::getId))
+                .doOnNext(list -> rebuildNegativeCache(tenant, list))
+                // convert Mono<List<T> to Flux<T>
+                .flatMapIterable(list -> list);
+    }
+
+    private static void rebuildNegativeCache(Tenant tenant,
+                                             List<Employee> roster) {
+        tenant.getNegativeCache()
+              .rebuild(roster.stream()
+                             .map(Employee::getId)
+                             .collect(Collectors.toList()));
     }
 
     /**
@@ -110,33 +186,177 @@ public class EmployeeService implements IEmployeeService {
      */
     @Override
     public Mono<Optional<Employee>> getEmployeeById(int id) {
-        return cache.cacheUpstream(id) // upstream cache access
-                    .flatMap(optionalEmployee -> {
-                        if (optionalEmployee.isEmpty()) {
-                            return client.get()
-                                         .uri(format("/employee/%s", id))
-                                         .retrieve()
-                                         .onStatus(HttpStatus.NOT_FOUND::equals,
-                                                   response -> response.bodyToMono(String.class)
-                                                                       .map(x -> new IdNotFoundException(id)))
-                                         .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals,
-                                                   response -> response.bodyToMono(String.class)
-                                                                       .map(b -> new ServiceException(unavailableMessage)))
-                                         .bodyToMono(ApiResponse.<Map<String, Object>>type())
-                                         .retryWhen(Retry.backoff(retryGetMax, Duration.ofMillis(retryGetDurationMs))
-                                                         .jitter(0.35)
-                                                         .filter(throwable -> throwable instanceof ServiceException)
-                                                         .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                                                             throw new ServiceException(retryMessage);
-                                                         }))
-                                         .map(response -> Optional.of(response.getData()))
-                                         .map(opt -> opt.map(Employee::fromMapOutput))
-                                         // downstream cache access
-                                         .transform(mono -> cache.cacheDownstream(id, mono));
-                        } else {
-                            return Mono.just(optionalEmployee);
-                        }
-                    });
+        return Mono.deferContextual(context -> getEmployeeById(tenants.resolve(context), id));
+    }
+
+    private Mono<Optional<Employee>> getEmployeeById(Tenant tenant,
+                                                     int id) {
+        return tenant.getCache()
+                     .cacheUpstream(id) // upstream cache access
+                     .transform(StageTrace.stage("cache"))
+                     .flatMap(optionalEmployee -> {
+                         if (optionalEmployee.isEmpty()) {
+                             if (tenant.getNegativeCache()
+                                       .isKnownMissing(id)) {
+                                 return Mono.error(new IdNotFoundException(id));
+                             }
+                             return fetchEmployee(tenant, id)
+                                     // downstream cache access
+                                     .transform(mono -> tenant.getCache()
+                                                              .cacheDownstream(id, mono));
+                         } else {
+                             return Mono.just(optionalEmployee);
+                         }
+                     });
+    }
+
+    /**
+     * Fetch one employee from the tenant's back-end, without consulting or updating its cache; IdNotFoundException if
+     * the back-end does not know the ID.
+     */
+    private Mono<Optional<Employee>> fetchEmployee(Tenant tenant,
+                                                   int id) {
+        return upstream(tenant, deadline -> limited(tenant, "employee", Lane.INTERACTIVE, tenant.getClient()
+                                                                                                .get()
+                                                                                                .uri(format("/employee/%s", id))
+                                                                                                .retrieve()
+                                                                                                .onStatus(HttpStatus.NOT_FOUND::equals,
+                                                                                                          response -> response.releaseBody()
+                                                                                                                              .then(Mono.fromSupplier(() -> new IdNotFoundException(id))))
+                                                                                                .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals, this::throttled)
+                                                                                                .onStatus(HttpStatus::is5xxServerError, this::unavailable)
+                                                                                                .bodyToMono(ApiResponse.<Map<String, Object>>type()))
+                .transform(retryPolicy.retry(tenant.getRetryBudget(), "get", deadline)))
+                .doOnError(IdNotFoundException.class, e -> tenant.getNegativeCache()
+                                                                 .recordMiss(id))
+                .map(response -> Optional.of(response.getData()))
+                .transform(StageTrace.map("map", (Optional<Map<String, Object>> opt) -> opt.map(Employee::fromMapOutput)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see IEmployeeService#fetchEmployeeById(int)
+     */
+    @Override
+    public Mono<Optional<Employee>> fetchEmployeeById(int id) {
+        return Mono.deferContextual(context -> fetchEmployee(tenants.resolve(context), id))
+                   .onErrorResume(IdNotFoundException.class, e -> Mono.just(Optional.empty()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Cache hits are answered immediately; entries whose throttle time has run out count as misses. When misses
+     * make up at least {@code employee.batch.bulk-miss-ratio} of the request, they are resolved with a single roster
+     * fetch, otherwise with individual fetches limited to {@code employee.batch.concurrency} at a time.
+     *
+     * @see IEmployeeService#getEmployeesByIds(List)
+     */
+    @Override
+    public Flux<Employee> getEmployeesByIds(List<Integer> ids) {
+        if (ids.size() > batchMaxIds) {
+            return Flux.error(new BatchTooLargeException(batchMaxIds));
+        }
+        return Flux.deferContextual(context -> {
+            Tenant tenant = tenants.resolve(context);
+            Map<Integer, Employee> hits = new HashMap<>();
+            Set<Integer> misses = new LinkedHashSet<>();
+            ids.forEach(id -> tenant.getCache()
+                                    .peekUnexpired(id)
+                                    .ifPresentOrElse(employee -> hits.put(id, employee), () -> misses.add(id)));
+            Map<Integer, Mono<Employee>> lookups = resolveMisses(tenant, misses, ids.size());
+            return Flux.fromIterable(ids)
+                       .flatMapSequential(id -> hits.containsKey(id) ? Mono.just(hits.get(id)) : lookups.get(id),
+                                          batchConcurrency);
+        });
+    }
+
+    /**
+     * Plan the lookups for cache misses of a batch, each one shared by repeated IDs within the batch.
+     * IDs known to be missing are answered locally and do not count towards the bulk fetch decision.
+     */
+    private Map<Integer, Mono<Employee>> resolveMisses(Tenant tenant,
+                                                       Set<Integer> misses,
+                                                       int requested) {
+        Map<Integer, Mono<Employee>> lookups = new HashMap<>();
+        misses.removeIf(id -> {
+            if (tenant.getNegativeCache()
+                      .isKnownMissing(id)) {
+                lookups.put(id, Mono.empty());
+                return true;
+            }
+            return false;
+        });
+        if (misses.size() > 1 && misses.size() >= requested * batchBulkMissRatio) {
+            Mono<Map<Integer, Employee>> roster = fetchAllEmployees(tenant).collectMap(Employee::getId)
+                                                                           .cache();
+            misses.forEach(id -> lookups.put(id, roster.flatMap(all -> Mono.justOrEmpty(all.get(id)))));
+        } else {
+            misses.forEach(id -> lookups.put(id, getEmployeeById(tenant, id).flatMap(Mono::justOrEmpty)
+                                                                            .onErrorResume(IdNotFoundException.class,
+                                                                                           e -> Mono.empty())
+                                                                            .cache()));
+        }
+        return lookups;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Queries run against an {@link EmployeeIndex} of the tenant's roster, rebuilt when the cache has changed since
+     * the index was built or the index is older than the cache throttle time, so that an expired roster is refreshed
+     * even when nothing else reads it; but at most once per {@code employee.query.min-rebuild-interval-ms}.
+     * A negative limit fails with InvalidLimitException.
+     *
+     * @see IEmployeeService#queryEmployees(EmployeeQuery)
+     */
+    @Override
+    public Flux<Employee> queryEmployees(EmployeeQuery query) {
+        if (query.getLimit() != null && query.getLimit() < 0) {
+            return Flux.error(new InvalidLimitException(query.getLimit()));
+        }
+        int limit = Math.min(query.getLimit() == null ? queryDefaultLimit : query.getLimit(), queryMaxLimit);
+        return Flux.deferContextual(context -> index(tenants.resolve(context)))
+                   .flatMapIterable(index -> index.query(query, limit));
+    }
+
+    private Mono<EmployeeIndex> index(Tenant tenant) {
+        long now = System.currentTimeMillis();
+        long version = tenant.getCache()
+                             .getVersion();
+        long throttleTime = tenant.getCache()
+                                  .getThrottleTime();
+        IndexBuild build = indexes.compute(tenant.getName(), (name, current) -> {
+            if (current != null) {
+                long age = now - current.startedAt;
+                if ((current.version == version && age < throttleTime) || age < queryMinRebuildIntervalMs) {
+                    return current;
+                }
+            }
+            return new IndexBuild(version, now, getAllEmployees(tenant).collectList()
+                                                                       .map(roster -> new EmployeeIndex(roster, version))
+                                                                       .cache());
+        });
+        // a failed build is not kept, so the next query tries again
+        return build.index.doOnError(e -> indexes.remove(tenant.getName(), build));
+    }
+
+    /**
+     * A shared, possibly still running, index build for one version of a tenant's cache.
+     */
+    private static class IndexBuild {
+
+        private final long version;
+        private final long startedAt;
+        private final Mono<EmployeeIndex> index;
+
+        private IndexBuild(long version,
+                           long startedAt,
+                           Mono<EmployeeIndex> index) {
+            this.version = version;
+            this.startedAt = startedAt;
+            this.index = index;
+        }
+
     }
 
     /**
@@ -146,26 +366,27 @@ public class EmployeeService implements IEmployeeService {
      */
     @Override
     public Mono<Employee> createEmployee(Map<String, Object> nameValuePairs) {
-        return client.post()
-                     .uri("/create")
-                     .body(BodyInserters.fromValue(nameValuePairs))
-                     .retrieve()
-                     .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals,
-                               response -> response.bodyToMono(String.class)
-                                                   .map(b -> new ServiceException(unavailableMessage)))
-                     .bodyToMono(ApiResponse.<LinkedHashMap<String, Object>>type())
-                     .retryWhen(Retry.backoff(retryChangeMax, Duration.ofMillis(retryChangeDurationMs))
-                                     .jitter(0.35)
-                                     .filter(throwable -> throwable instanceof ServiceException)
-                                     .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                                         throw new ServiceException(retryMessage);
-                                     }))
-                     .map(ApiResponse::getData)
-                     .map(Employee::fromMapOutputCreate)
-                     .flatMap(employee -> {
-                         cache.put(employee.getId(), employee);
-                         return Mono.just(employee);
-                     });
+        return Mono.deferContextual(context -> {
+            Tenant tenant = tenants.resolve(context);
+            return upstream(tenant, deadline -> limited(tenant, "create", Lane.INTERACTIVE, tenant.getClient()
+                                                                                                  .post()
+                                                                                                  .uri("/create")
+                                                                                                  .body(BodyInserters.fromValue(nameValuePairs))
+                                                                                                  .retrieve()
+                                                                                                  .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals, this::throttled)
+                                                                                                  .onStatus(HttpStatus::is5xxServerError, this::unavailable)
+                                                                                                  .bodyToMono(ApiResponse.<LinkedHashMap<String, Object>>type()))
+                    .transform(retryPolicy.retry(tenant.getRetryBudget(), "create", deadline)))
+                    .map(ApiResponse::getData)
+                    .map(Employee::fromMapOutputCreate)
+                    .flatMap(employee -> {
+                        tenant.getCache()
+                              .put(employee.getId(), employee);
+                        tenant.getNegativeCache()
+                              .invalidate(employee.getId());
+                        return Mono.just(employee);
+                    });
+        });
     }
 
     /**
@@ -176,44 +397,114 @@ public class EmployeeService implements IEmployeeService {
     @Override
     public Mono<String> deleteEmployeeById(int id) {
         // @formatter:off
-        return getEmployeeById(id)
+        return Mono.deferContextual(context -> {
+            Tenant tenant = tenants.resolve(context);
+            return getEmployeeById(tenant, id)
                 .flatMap(optionalEmployee -> optionalEmployee
                   .map(employee -> {
-                    cache.deleteFromCache(id);
-                    return client
+                    // the cache keeps the employee until the back-end has deleted it, then records the deletion
+                    // as pending so a roster fetched before the back-end caught up cannot bring it back
+                    return upstream(tenant, deadline -> limited(tenant, "delete", Lane.INTERACTIVE, tenant.getClient()
                       .delete()
                       .uri(format("/delete/%s", id))
                       .retrieve()
-                      .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals,
-                        response -> response.bodyToMono(String.class)
-                                            .map(b -> new ServiceException(unavailableMessage)))
-                      .bodyToMono(ApiResponse.<String>type())
-                      .retryWhen(Retry.backoff(retryChangeMax, Duration.ofMillis(retryChangeDurationMs))
-                                      .jitter(0.35)
-                                      .filter(throwable -> throwable instanceof ServiceException)
-                                      .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                                          throw new ServiceException(retryMessage);
-                                      })
-                      );
+                      .onStatus(HttpStatus.TOO_MANY_REQUESTS::equals, this::throttled)
+                      .onStatus(HttpStatus::is5xxServerError, this::unavailable)
+                      .bodyToMono(ApiResponse.<String>type()))
+                      .transform(retryPolicy.retry(tenant.getRetryBudget(), "delete", deadline)))
+                      .doOnNext(response -> {
+                        tenant.getCache().deleteFromCache(id);
+                        tenant.getNegativeCache().recordMiss(id);
+                      });
                   })
                   .orElseThrow(() -> new IdNotFoundException(id))
                   .map(x -> optionalEmployee.map(Employee::getName)
                                             .orElseThrow(() -> new IdNotFoundException(id))));
+        });
         // @formatter:on
     }
 
     /**
-     * We can load the employees on startup here by enabling @PostConstruct
+     * Run an upstream call within the request's {@link Deadline}, if it has one.
+     * A request whose budget is already spent never reaches the back-end, and an in-flight call is cancelled as soon
+     * as the budget runs out.
+     *
+     * @param tenant Tenant whose back-end is called.
+     * @param call   Function building the upstream call, given the deadline so that its retries can honour it.
+     * @param <T>    Type of the upstream response.
+     * @return Upstream response, or DeadlineExceededException.
      */
-    // @PostConstruct
-    @SuppressWarnings("unused")
-    public void init() {
-        // attempt to load all employees on startup
-        try {
-            getAllEmployees().blockLast(Duration.ofSeconds(120));
-        } catch (ServiceException e) {
-            log.warn("Could not load employees on startup", e);
-        }
+    private <T> Mono<T> upstream(Tenant tenant,
+                                 Function<Optional<Deadline>, Mono<T>> call) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = Deadline.from(context);
+            if (deadline.map(Deadline::isExpired)
+                        .orElse(false)) {
+                abandoned(tenant, "expired");
+                return Mono.error(new DeadlineExceededException());
+            }
+            Mono<T> mono = call.apply(deadline);
+            // the timeout cancels the call too, so only a cancellation from downstream counts as the client's
+            return deadline.map(d -> mono.timeout(d.remaining(), Mono.defer(() -> {
+                               abandoned(tenant, "timeout");
+                               return Mono.<T>error(new DeadlineExceededException());
+                           })))
+                           .orElse(mono)
+                           .doOnCancel(() -> abandoned(tenant, "cancelled"));
+        });
+    }
+
+    /**
+     * Send one attempt of an upstream call through the tenant's scheduler and rate limiter, counting it per tenant
+     * and operation. Retries resubscribe to the returned Mono, so every attempt queues and takes a permit again.
+     * For a traced request the attempt is broken down into queue, rate-limit, upstream and decode stages.
+     *
+     * @param defaultLane Scheduler lane of the call, unless the subscriber's context names another.
+     */
+    private <T> Mono<T> limited(Tenant tenant,
+                                String operation,
+                                Lane defaultLane,
+                                Mono<T> request) {
+        return Mono.deferContextual(context -> {
+            meterRegistry.counter("employee.upstream.calls", "tenant", tenant.getName(), "operation", operation)
+                         .increment();
+            Optional<StageTrace> trace = StageTrace.from(context);
+            long queuedAt = System.nanoTime();
+            return tenant.getScheduler()
+                         .schedule(UpstreamScheduler.lane(context, defaultLane), Mono.defer(() -> {
+                             trace.ifPresent(t -> t.record("queue", queuedAt, System.nanoTime()));
+                             return tenant.getRateLimiter()
+                                          .acquire()
+                                          .transform(StageTrace.stage("rate-limit"))
+                                          .then(request.transform(StageTrace.exchange()));
+                         }));
+        });
+    }
+
+    /**
+     * The back-end is throttling us; the body is released so the connection can be reused.
+     */
+    private Mono<? extends Throwable> throttled(ClientResponse response) {
+        return response.releaseBody()
+                       .then(Mono.fromSupplier(() -> UpstreamThrottledException.from(unavailableMessage, response)));
+    }
+
+    /**
+     * The back-end failed; retried only for idempotent operations, and without a Retry-After.
+     */
+    private Mono<? extends Throwable> unavailable(ClientResponse response) {
+        return response.releaseBody()
+                       .then(Mono.fromSupplier(() -> new ServiceException(unavailableMessage)));
+    }
+
+    /**
+     * Count upstream work given up on: "expired" before it started, "timeout" when the deadline passed in flight,
+     * "cancelled" when the client went away.
+     */
+    private void abandoned(Tenant tenant,
+                           String reason) {
+        meterRegistry.counter("employee.upstream.abandoned", "tenant", tenant.getName(), "reason", reason)
+                     .increment();
     }
 
 }
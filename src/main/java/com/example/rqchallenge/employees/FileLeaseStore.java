@@ -0,0 +1,110 @@
+package com.example.rqchallenge.employees;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link LeaseStore} in a directory: each lease is an exclusive lock on a {@code <name>.lock} file, and each result
+ * a {@code <name>.snapshot} file replaced atomically.
+ * Replicas on one host, or sharing the directory over a file system with working locks, coordinate through it.
+ * The operating system releases the lock of a replica which dies, so a lease cannot be left stranded.
+ */
+public class FileLeaseStore implements LeaseStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileLeaseStore.class);
+    /**
+     * Lock files with a lease held by this process, through any store.
+     */
+    private static final Set<Path> HELD = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+
+    /**
+     * @param directory Directory holding the lock and snapshot files, created if missing.
+     */
+    public FileLeaseStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Lease> tryAcquire(String name) {
+        // leases held by this process are tracked here rather than by the file system: opening and closing a second
+        // channel to a locked file would release the process's lock on it
+        Path path = directory.resolve(name + ".lock")
+                             .toAbsolutePath()
+                             .normalize();
+        if (!HELD.add(path)) {
+            return Optional.empty();
+        }
+        try {
+            FileChannel channel = FileChannel.open(path,
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                HELD.remove(path);
+                return Optional.empty();
+            }
+            return Optional.of(() -> {
+                try {
+                    lock.release();
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Could not release lease {}", name, e);
+                } finally {
+                    HELD.remove(path);
+                }
+            });
+        } catch (IOException e) {
+            HELD.remove(path);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void publish(String name,
+                        byte[] content) {
+        Path target = directory.resolve(name + ".snapshot");
+        Path tmp = directory.resolve(name + ".snapshot.tmp");
+        try {
+            Files.write(tmp, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Snapshot> latest(String name) {
+        Path path = directory.resolve(name + ".snapshot");
+        try {
+            long publishedAt = Files.getLastModifiedTime(path)
+                                    .toMillis();
+            return Optional.of(new Snapshot(Files.readAllBytes(path), publishedAt));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
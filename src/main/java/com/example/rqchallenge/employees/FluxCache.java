@@ -1,13 +1,23 @@
 package com.example.rqchallenge.employees;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
@@ -15,6 +25,15 @@ import java.util.function.Function;
  * To enable the cache to work within the reactive framework, the cache is called in 2 phases: upstream and downstream.
  * Upstream phase implements throttling and checks the cache, while downstream will update the cache based on data
  * returned from the WebClient (or other expensive operation).
+ * <p>
+ * Entries are partitioned by a hash of the key into shards, each with its own throttle and generation, so readers on
+ * many cores do not all race one map, and a bulk refresh replaces the shards one at a time rather than clearing the
+ * whole cache. Bulk reads merge the shards in key order.
+ * <p>
+ * Local writes ({@link #put} and {@link #deleteFromCache}) are also kept as a pending overlay, which loads from the
+ * supplier merge rather than overwrite: a load which started before the write, or which the supplier answered before
+ * it had caught up, cannot undo it. An overlay entry is retired once a bulk load agrees with it, or after the throttle
+ * time, when the supplier's data is taken as authoritative again.
  *
  * @see <a href="https://www.baeldung.com/spring-webflux-cacheable">Spring Webflux and @Cacheable Annotation</a>
  * @see <a href="https://copyprogramming.com/howto/spring-webflux-and-cacheable-annotation">Using @Cacheable Annotation with Spring Webflux</a>
@@ -23,78 +42,264 @@ import java.util.function.Function;
  * @see <a href="https://github.com/reactor/reactor-addons/issues/237">Deprecating cache utilities (removal in 3.6.0)</a>
  */
 @Component
-public class FluxCache<K, V> {
+public class FluxCache<K extends Comparable<K>, V> {
 
-    private final ConcurrentHashMap<K, Mono<V>> data;
-    private long throttleTimestamp = System.currentTimeMillis();
+    private final Shard<K, V>[] shards;
+    private final int mask;
     /**
      * Minimum amount of time (in milliseconds) to wait between each request to the cache supplier.
      */
-    @Value("${employee.cache.throttle-time-ms:7200000}")
-    private long throttleTime;
+    private final long throttleTime;
+    /**
+     * Memory budget, as the maximum number of entries held across all shards; 0 for unbounded.
+     * It is enforced on the total rather than split evenly between the shards, so that keys which hash unevenly do not
+     * leave a shard short of room while the others have plenty.
+     */
+    private final int maxEntries;
+    /**
+     * Incremented whenever an entry is added, removed or replaced by an unequal value, and on every bulk load, so
+     * derived data such as indexes can tell when it is stale; a refetch returning the cached value does not count.
+     */
+    private final AtomicLong version = new AtomicLong();
+    /**
+     * Local writes not yet confirmed by a bulk load, by key; a null value is a deletion.
+     */
+    private final ConcurrentHashMap<K, Pending<V>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param throttleTime Minimum amount of time (in milliseconds) between requests to the cache supplier.
+     * @param maxEntries   Memory budget, as the maximum number of entries held across all shards; 0 for unbounded.
+     * @param shardCount   Number of shards, rounded up to a power of two; 0 for one per available processor.
+     */
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public FluxCache(@Value("${employee.cache.throttle-time-ms:7200000}") long throttleTime,
+                     @Value("${employee.cache.max-entries:0}") int maxEntries,
+                     @Value("${employee.cache.shards:0}") int shardCount) {
+        int requested = shardCount > 0 ? shardCount : Runtime.getRuntime()
+                                                             .availableProcessors();
+        int count = 1;
+        while (count < requested) {
+            count <<= 1;
+        }
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard<>(System.currentTimeMillis());
+        }
+        this.mask = count - 1;
+        this.throttleTime = throttleTime;
+        this.maxEntries = Math.max(0, maxEntries);
+    }
 
-    public FluxCache() {
-        this.data = new ConcurrentHashMap<>();
+    private int indexFor(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
     }
 
-    private synchronized boolean checkThrottleExpired() {
-        long now = System.currentTimeMillis();
-        if (now > this.throttleTimestamp) {
-            this.throttleTimestamp = now + this.throttleTime;
-            return true;
-        } else {
-            return false;
-        }
+    private Shard<K, V> shardFor(K key) {
+        return shards[indexFor(key)];
     }
 
     public Mono<Optional<V>> cacheUpstream(K key) {
-        if (checkThrottleExpired()) {
+        Shard<K, V> shard = shardFor(key);
+        if (shard.checkThrottleExpired(throttleTime)) {
             // intentionally do not evict here: the stale object is still last known good
             // and thus may be needed during cacheDownstream
             return Mono.just(Optional.empty());
         }
-        Mono<V> maybeNull = data.get(key);
-        if (maybeNull == null) {
-            return Mono.just(Optional.empty());
-        } else {
-            return maybeNull.map(Optional::of);
-        }
+        return Mono.just(Optional.ofNullable(shard.entries.get(key)));
     }
 
     public Mono<Optional<V>> cacheDownstream(K key,
                                              Mono<Optional<V>> value) {
-        return value.flatMap(optional -> {
-            if (optional.isPresent()) {
-                data.put(key, Mono.just(optional.get()));
-            } else {
-                data.remove(key);
+        // map rather than returning the source from flatMap, which would subscribe to (and call) it twice
+        return value.map(optional -> {
+            Pending<V> write = activePending(key);
+            if (write != null) {
+                // the fetch may predate the local write, which wins until a bulk load confirms it
+                if (apply(key, write)) {
+                    version.incrementAndGet();
+                }
+                return Optional.ofNullable(write.value);
+            }
+            boolean changed = optional.isPresent() ? store(key, optional.get()) : shardFor(key).remove(key);
+            if (changed) {
+                version.incrementAndGet();
             }
-            return value;
+            return optional;
         });
     }
 
     public Optional<Flux<V>> cacheUpstreamBulk() {
-        if (checkThrottleExpired() || data.isEmpty()) {
+        // claim every expired shard, not just the first, so the other shards do not each trigger another refresh
+        boolean expired = false;
+        boolean complete = true;
+        @SuppressWarnings("unchecked")
+        Flux<Map.Entry<K, V>>[] sources = new Flux[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            expired |= shards[i].checkThrottleExpired(throttleTime);
+            // entries cached one at a time (or cut off by the budget) are not the whole data set
+            complete &= shards[i].complete;
+            // each shard is sorted, so merging them keeps the whole result in key order
+            sources[i] = Flux.fromIterable(shards[i].entries.entrySet());
+        }
+        if (expired || !complete) {
             return Optional.empty();
         }
-        return Optional.of(Flux.concat(data.values()));
+        return Optional.of(Flux.mergeComparing(Map.Entry.<K, V>comparingByKey(), sources)
+                               .map(Map.Entry::getValue));
     }
 
+    /**
+     * Replace the entries with a complete data set from the supplier, merged with the pending overlay.
+     *
+     * @param monoList Complete data set.
+     * @param mapping  Key of each value.
+     * @return The data set as cached: the supplier's values, less local deletions and plus local writes it does not
+     * reflect yet.
+     */
     public Mono<List<V>> cacheDownstreamBulk(Mono<List<V>> monoList,
                                              Function<V, K> mapping) {
-        return monoList.flatMap(list -> {
-            data.clear();
-            list.forEach(value -> data.put(mapping.apply(value), Mono.just(value)));
-            return monoList;
+        return monoList.map(list -> {
+            Map<K, Pending<V>> overlay = pendingSnapshot();
+            // deletions the data set contradicts, i.e. still lists; the others are confirmed
+            Set<K> undeleted = new HashSet<>();
+            List<V> merged = new ArrayList<>(list.size() + overlay.size());
+            List<ConcurrentSkipListMap<K, V>> replacements = new ArrayList<>(shards.length);
+            for (int i = 0; i < shards.length; i++) {
+                replacements.add(new ConcurrentSkipListMap<>());
+            }
+            boolean[] truncated = new boolean[shards.length];
+            int[] kept = new int[1];
+            list.forEach(value -> {
+                K key = mapping.apply(value);
+                Pending<V> write = overlay.get(key);
+                if (write != null) {
+                    if (write.value == null) {
+                        undeleted.add(key);
+                        return;
+                    }
+                    // the supplier has the written entry: take its value and retire the write
+                    overlay.remove(key);
+                    pending.remove(key, write);
+                }
+                merged.add(value);
+                keep(replacements, truncated, kept, key, value);
+            });
+            overlay.forEach((key, write) -> {
+                if (write.value != null) {
+                    merged.add(write.value);
+                    keep(replacements, truncated, kept, key, write.value);
+                } else if (!undeleted.contains(key)) {
+                    pending.remove(key, write);
+                }
+            });
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].swap(replacements.get(i), !truncated[i]);
+            }
+            // writes which landed in a shard just before it was swapped out, including any made since the snapshot,
+            // are applied again to its replacement
+            pendingSnapshot().forEach(this::apply);
+            version.incrementAndGet();
+            return merged;
         });
     }
 
+    /**
+     * Add an entry of a bulk load to the replacement of its shard, unless the load already filled the budget, in
+     * which case that shard will not hold every entry.
+     */
+    private void keep(List<ConcurrentSkipListMap<K, V>> replacements,
+                      boolean[] truncated,
+                      int[] kept,
+                      K key,
+                      V value) {
+        int index = indexFor(key);
+        ConcurrentSkipListMap<K, V> replacement = replacements.get(index);
+        if (maxEntries > 0 && kept[0] >= maxEntries && !replacement.containsKey(key)) {
+            truncated[index] = true;
+        } else if (replacement.put(key, value) == null) {
+            kept[0]++;
+        }
+    }
+
+    /**
+     * Add an entry unless that would exceed the memory budget, in which case its shard no longer holds every entry
+     * and bulk requests go to the supplier.
+     *
+     * @return Whether the entries changed.
+     */
+    private boolean store(K key,
+                          V value) {
+        Shard<K, V> shard = shardFor(key);
+        if (maxEntries > 0 && heldCount() >= maxEntries && !shard.entries.containsKey(key)) {
+            shard.complete = false;
+            return false;
+        }
+        return shard.put(key, value);
+    }
+
+    /**
+     * @return Whether the entries changed.
+     */
+    private boolean apply(K key,
+                          Pending<V> write) {
+        if (write.value == null) {
+            return shardFor(key).remove(key);
+        }
+        return store(key, write.value);
+    }
+
+    /**
+     * @return Number of entries held, as counted by the shards on each change; cheaper than {@link #size()}, but may
+     * be off by the writes racing a bulk load until the next one.
+     */
+    private int heldCount() {
+        int held = 0;
+        for (Shard<K, V> shard : shards) {
+            held += shard.count.get();
+        }
+        return held;
+    }
+
+    /**
+     * @return Unexpired pending writes, after dropping the expired ones.
+     */
+    private Map<K, Pending<V>> pendingSnapshot() {
+        if (pending.isEmpty()) {
+            return new HashMap<>();
+        }
+        long expiredBefore = System.currentTimeMillis() - throttleTime;
+        Map<K, Pending<V>> snapshot = new HashMap<>();
+        pending.forEach((key, write) -> {
+            if (write.writtenAt < expiredBefore) {
+                pending.remove(key, write);
+            } else {
+                snapshot.put(key, write);
+            }
+        });
+        return snapshot;
+    }
+
+    private Pending<V> activePending(K key) {
+        Pending<V> write = pending.get(key);
+        if (write != null && write.writtenAt < System.currentTimeMillis() - throttleTime) {
+            pending.remove(key, write);
+            return null;
+        }
+        return write;
+    }
+
     /**
      * A synchronous deletion.
      * @param key Key of entry to delete from cache.
      */
     public void deleteFromCache(K key) {
-        data.remove(key);
+        // overlay first, so a concurrent bulk load which misses the removal still sees the overlay
+        pending.put(key, new Pending<>(null));
+        if (shardFor(key).remove(key)) {
+            version.incrementAndGet();
+        }
     }
 
     /**
@@ -103,7 +308,217 @@ public class FluxCache<K, V> {
      * @param value Value to be mapped against the key.
      */
     public void put(K key, V value) {
-        data.put(key, Mono.just(value));
+        pending.put(key, new Pending<>(value));
+        if (store(key, value)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * A synchronous lookup which does not take part in throttling.
+     * @param key Key of entry to look up.
+     * @return Cached value, Empty if the key is not cached.
+     */
+    public Optional<V> peek(K key) {
+        return Optional.ofNullable(shardFor(key).entries.get(key));
+    }
+
+    /**
+     * A synchronous lookup which treats entries whose throttle time has run out as missing, like
+     * {@link #cacheUpstream}, but without claiming the refresh of their shard.
+     * @param key Key of entry to look up.
+     * @return Cached value, Empty if the key is not cached or its shard has expired.
+     */
+    public Optional<V> peekUnexpired(K key) {
+        Shard<K, V> shard = shardFor(key);
+        if (shard.isThrottleExpired()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shard.entries.get(key));
+    }
+
+    /**
+     * @param key Key of entry to check.
+     * @return Whether a local write to the key is still pending confirmation by a bulk load.
+     */
+    public boolean isPending(K key) {
+        return activePending(key) != null;
+    }
+
+    /**
+     * @return Number of local writes pending confirmation by a bulk load.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @param count Number of keys wanted.
+     * @return Up to count keys chosen uniformly at random from the cached entries.
+     */
+    public List<K> sampleKeys(int count) {
+        List<K> sample = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seen = 0;
+        for (Shard<K, V> shard : shards) {
+            for (K key : shard.entries.keySet()) {
+                seen++;
+                if (sample.size() < count) {
+                    sample.add(key);
+                } else {
+                    long slot = random.nextLong(seen);
+                    if (slot < count) {
+                        sample.set((int) slot, key);
+                    }
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * @return Number of entries held.
+     */
+    public int size() {
+        int size = 0;
+        for (Shard<K, V> shard : shards) {
+            size += shard.entries.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return Counter which changes whenever the cached entries change.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return Minimum amount of time (in milliseconds) between requests to the cache supplier.
+     */
+    public long getThrottleTime() {
+        return throttleTime;
+    }
+
+    /**
+     * Restart the throttle of every shard, after the whole data set was loaded other than through an expired
+     * {@link #cacheUpstreamBulk()} (e.g. by a scheduled prefetch), so requests do not trigger another load.
+     */
+    public void renewThrottle() {
+        renewThrottle(System.currentTimeMillis());
+    }
+
+    /**
+     * Restart the throttle of every shard as of the time the whole data set was loaded, e.g. when another replica
+     * published it, so that a data set loaded long ago is not treated as fresh. Never shortens a throttle.
+     *
+     * @param loadedAt Time (in epoch ms) the data set was loaded from the supplier.
+     */
+    public void renewThrottle(long loadedAt) {
+        long until = loadedAt + throttleTime;
+        for (Shard<K, V> shard : shards) {
+            shard.throttleTimestamp.accumulateAndGet(until, Math::max);
+        }
+    }
+
+    /**
+     * @return Number of shard replacements by bulk loads, summed over the shards.
+     */
+    public long getShardSwaps() {
+        long swaps = 0;
+        for (Shard<K, V> shard : shards) {
+            swaps += shard.generation.get();
+        }
+        return swaps;
+    }
+
+    private static class Shard<K, V> {
+
+        private final AtomicLong throttleTimestamp;
+        private volatile ConcurrentSkipListMap<K, V> entries = new ConcurrentSkipListMap<>();
+        /**
+         * Whether the entries are the complete result of the last bulk load, and so may answer a bulk request.
+         */
+        private volatile boolean complete;
+        private final AtomicLong generation = new AtomicLong();
+        /**
+         * Number of entries, kept alongside them since the size of a ConcurrentSkipListMap takes a full traversal.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Shard(long throttleTimestamp) {
+            this.throttleTimestamp = new AtomicLong(throttleTimestamp);
+        }
+
+        private boolean isThrottleExpired() {
+            return System.currentTimeMillis() > throttleTimestamp.get();
+        }
+
+        /**
+         * Lock-free so that callers on an event loop never contend on a monitor; only the caller which wins the
+         * compare-and-set observes the expiry.
+         */
+        private boolean checkThrottleExpired(long throttleTime) {
+            long now = System.currentTimeMillis();
+            long timestamp = throttleTimestamp.get();
+            return now > timestamp && throttleTimestamp.compareAndSet(timestamp, now + throttleTime);
+        }
+
+        /**
+         * @return Whether the key was absent or held an unequal value.
+         */
+        private boolean put(K key,
+                            V value) {
+            V previous = entries.put(key, value);
+            if (previous == null) {
+                count.incrementAndGet();
+                return true;
+            }
+            return !previous.equals(value);
+        }
+
+        /**
+         * @return Whether the key was present.
+         */
+        private boolean remove(K key) {
+            if (entries.remove(key) != null) {
+                count.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Replace the entries in one step, so readers see either the old or the new shard, never a partial one.
+         */
+        private void swap(ConcurrentSkipListMap<K, V> replacement,
+                          boolean isComplete) {
+            complete = false;
+            entries = replacement;
+            count.set(replacement.size());
+            generation.incrementAndGet();
+            complete = isComplete;
+        }
+
+    }
+
+    /**
+     * A local write pending confirmation: the written value, or null for a deletion.
+     */
+    private static class Pending<V> {
+
+        private final V value;
+        private final long writtenAt = System.currentTimeMillis();
+
+        private Pending(V value) {
+            this.value = value;
+        }
+
     }
 
 }
@@ -1,35 +1,150 @@
 package com.example.rqchallenge.employees;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.springframework.http.HttpStatus.*;
 
+/**
+ * Maps exceptions to responses.
+ * Client errors (400/404) are expected at high rates under scanner traffic, so their logging is sampled by
+ * {@link LogSampler} without stack traces, every occurrence is counted in the employee.client-errors meter, and the
+ * invalid ID and unknown ID responses are encoded once up front.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private static final String INVALID_NUMBER_MESSAGE = "Request contained invalid numeric format.";
+    private static final String ID_NOT_FOUND_MESSAGE = "The requested employee ID could not be found.";
+    private static final ResponseEntity<byte[]> INVALID_NUMBER_RESPONSE = preEncoded(BAD_REQUEST,
+                                                                                     INVALID_NUMBER_MESSAGE);
+    private static final ResponseEntity<byte[]> ID_NOT_FOUND_RESPONSE = preEncoded(NOT_FOUND, ID_NOT_FOUND_MESSAGE);
+    private final LogSampler invalidNumberLog;
+    private final LogSampler idNotFoundLog;
+    private final LogSampler badRequestLog;
+    private final Counter invalidNumberCount;
+    private final Counter idNotFoundCount;
+    private final Counter badRequestCount;
+
+    @Autowired
+    public GlobalExceptionHandler(@Autowired MeterRegistry meterRegistry,
+                                  @Value("${employee.client-error-log.interval-ms:10000}") long logIntervalMs,
+                                  @Value("${employee.client-error-log.max-per-interval:5}") int logMaxPerInterval) {
+        this.invalidNumberLog = new LogSampler(logIntervalMs, logMaxPerInterval);
+        this.idNotFoundLog = new LogSampler(logIntervalMs, logMaxPerInterval);
+        this.badRequestLog = new LogSampler(logIntervalMs, logMaxPerInterval);
+        this.invalidNumberCount = meterRegistry.counter("employee.client-errors", "reason", "invalid-number");
+        this.idNotFoundCount = meterRegistry.counter("employee.client-errors", "reason", "id-not-found");
+        this.badRequestCount = meterRegistry.counter("employee.client-errors", "reason", "bad-request");
+    }
+
+    private static ResponseEntity<byte[]> preEncoded(HttpStatus status,
+                                                     String message) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+        return new ResponseEntity<>(message.getBytes(StandardCharsets.UTF_8),
+                                    HttpHeaders.readOnlyHttpHeaders(headers),
+                                    status);
+    }
+
+    private static void sampled(LogSampler sampler,
+                                String message) {
+        long suppressed = sampler.sample();
+        if (suppressed > 0) {
+            log.warn("{} ({} similar not logged)", message, suppressed);
+        } else if (suppressed == 0) {
+            log.warn(message);
+        }
+    }
+
+    @ExceptionHandler(InvalidIdException.class)
+    public ResponseEntity<byte[]> invalidIdException(InvalidIdException e) {
+        invalidNumberCount.increment();
+        sampled(invalidNumberLog, INVALID_NUMBER_MESSAGE);
+        return INVALID_NUMBER_RESPONSE;
+    }
+
+    @ExceptionHandler(NumberFormatException.class)
+    public ResponseEntity<byte[]> numberFormatException(NumberFormatException e) {
+        invalidNumberCount.increment();
+        sampled(invalidNumberLog, INVALID_NUMBER_MESSAGE);
+        return INVALID_NUMBER_RESPONSE;
+    }
 
     @ResponseStatus(BAD_REQUEST)
     @ResponseBody
-    @ExceptionHandler(NumberFormatException.class)
-    public String numberFormatException(NumberFormatException e) {
-        String message = "Request contained invalid numeric format.";
-        log.warn(message, e);
-        return message;
+    @ExceptionHandler(BatchTooLargeException.class)
+    public String batchTooLargeException(BatchTooLargeException e) {
+        badRequestCount.increment();
+        sampled(badRequestLog, e.getMessage());
+        return e.getMessage();
     }
 
-    @ResponseStatus(NOT_FOUND)
+    @ResponseStatus(BAD_REQUEST)
+    @ResponseBody
+    @ExceptionHandler(InvalidLimitException.class)
+    public String invalidLimitException(InvalidLimitException e) {
+        badRequestCount.increment();
+        sampled(badRequestLog, e.getMessage());
+        return e.getMessage();
+    }
+
+    @ResponseStatus(BAD_REQUEST)
+    @ResponseBody
+    @ExceptionHandler(UnknownTenantException.class)
+    public String unknownTenantException(UnknownTenantException e) {
+        badRequestCount.increment();
+        sampled(badRequestLog, e.getMessage());
+        return e.getMessage();
+    }
+
+    @ResponseStatus(BAD_REQUEST)
     @ResponseBody
+    @ExceptionHandler(UnsupportedExportFormatException.class)
+    public String unsupportedExportFormatException(UnsupportedExportFormatException e) {
+        badRequestCount.increment();
+        sampled(badRequestLog, e.getMessage());
+        return e.getMessage();
+    }
+
+    @ResponseStatus(UNPROCESSABLE_ENTITY)
+    @ResponseBody
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public String idempotencyKeyReusedException(IdempotencyKeyReusedException e) {
+        badRequestCount.increment();
+        sampled(badRequestLog, e.getMessage());
+        return e.getMessage();
+    }
+
     @ExceptionHandler(IdNotFoundException.class)
-    public String employeeIdNotFoundException(IdNotFoundException e) {
-        String message = "The requested employee ID could not be found.";
-        log.warn(message, e);
-        return message;
+    public ResponseEntity<byte[]> employeeIdNotFoundException(IdNotFoundException e) {
+        idNotFoundCount.increment();
+        sampled(idNotFoundLog, ID_NOT_FOUND_MESSAGE);
+        return ID_NOT_FOUND_RESPONSE;
+    }
+
+    @ResponseStatus(NOT_FOUND)
+    @ResponseBody
+    @ExceptionHandler(JobNotFoundException.class)
+    public String jobNotFoundException(JobNotFoundException e) {
+        idNotFoundCount.increment();
+        sampled(idNotFoundLog, e.getMessage());
+        return e.getMessage();
     }
 
     /**
@@ -56,4 +171,44 @@ public class GlobalExceptionHandler {
         return e.getMessage();
     }
 
+    /**
+     * Throttling which outlasted our retries is passed on, with the back-end's Retry-After if it gave one.
+     */
+    @ExceptionHandler(UpstreamThrottledException.class)
+    public ResponseEntity<String> upstreamThrottledException(UpstreamThrottledException e) {
+        log.warn(e.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(SERVICE_UNAVAILABLE);
+        e.getRetryAfter()
+         .ifPresent(retryAfter -> response.header(HttpHeaders.RETRY_AFTER,
+                                                  Long.toString(Math.max(1, retryAfter.toSeconds()))));
+        return response.body(e.getMessage());
+    }
+
+    @ExceptionHandler(UpstreamOverloadedException.class)
+    public ResponseEntity<String> upstreamOverloadedException(UpstreamOverloadedException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                             .body(e.getMessage());
+    }
+
+    @ExceptionHandler(QueueFullException.class)
+    public ResponseEntity<String> queueFullException(QueueFullException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                             .body(e.getMessage());
+    }
+
+    /**
+     * The request's deadline passed before the back-end API answered; the upstream work has been abandoned.
+     */
+    @ResponseStatus(GATEWAY_TIMEOUT)
+    @ResponseBody
+    @ExceptionHandler(DeadlineExceededException.class)
+    public String deadlineExceededException(DeadlineExceededException e) {
+        log.warn(e.getMessage());
+        return e.getMessage();
+    }
+
 }
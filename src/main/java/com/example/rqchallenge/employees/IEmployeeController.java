@@ -4,6 +4,7 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -38,6 +39,43 @@ public interface IEmployeeController {
     @GetMapping("/{id}")
     Mono<Employee> getEmployeeById(@PathVariable String id);
 
+    /**
+     * Get many employees by ID
+     *
+     * @param ids Comma separated IDs, e.g. ?ids=1,2,3
+     * @return Matching employees, streamed in request order
+     */
+    @GetMapping("/batch")
+    Flux<Employee> getEmployeesByIds(@RequestParam String ids);
+
+    /**
+     * Get many employees by ID
+     *
+     * @param ids Request with body containing a list of IDs
+     * @return Matching employees, streamed in request order
+     */
+    @PostMapping("/batch")
+    Flux<Employee> getEmployeesByIdList(@RequestBody List<String> ids);
+
+    /**
+     * Find employees by salary range, age range and name, e.g. ?salaryMin=50000&ageMax=40&nameContains=Smith
+     *
+     * @param salaryMin    Lowest salary, inclusive
+     * @param salaryMax    Highest salary, inclusive
+     * @param ageMin       Lowest age, inclusive
+     * @param ageMax       Highest age, inclusive
+     * @param nameContains Case-sensitive name search
+     * @param limit        Maximum number of employees to return
+     * @return Matching employees in roster order
+     */
+    @GetMapping("/query")
+    Flux<Employee> queryEmployees(@RequestParam(required = false) Integer salaryMin,
+                                  @RequestParam(required = false) Integer salaryMax,
+                                  @RequestParam(required = false) Integer ageMin,
+                                  @RequestParam(required = false) Integer ageMax,
+                                  @RequestParam(required = false) String nameContains,
+                                  @RequestParam(required = false) Integer limit);
+
     /**
      * Get the highest salary
      *
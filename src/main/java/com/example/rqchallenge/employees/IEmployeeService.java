@@ -3,6 +3,7 @@ package com.example.rqchallenge.employees;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,6 +20,23 @@ public interface IEmployeeService {
      */
     Flux<Employee> getAllEmployees();
 
+    /**
+     * Load all employees from the back-end now, regardless of the age of the cached list, and cache them.
+     *
+     * @return Employee list
+     */
+    Mono<List<Employee>> refreshAllEmployees();
+
+    /**
+     * Replace the cached list of all employees with one loaded elsewhere, e.g. shared by another replica.
+     *
+     * @param employees Complete employee list
+     * @param loadedAt  Time (in epoch ms) the list was fetched from the back-end, from which the cache counts it fresh
+     * @return Completion once cached
+     */
+    Mono<Void> loadAllEmployees(List<Employee> employees,
+                                long loadedAt);
+
     /**
      * Get a specific employee by ID
      *
@@ -27,6 +45,30 @@ public interface IEmployeeService {
      */
     Mono<Optional<Employee>> getEmployeeById(int id);
 
+    /**
+     * Fetch an employee from the back-end, bypassing the cache and leaving it unchanged, e.g. to verify the cache.
+     *
+     * @param id ID of the employee.
+     * @return The employee as the back-end has it, Empty if the back-end does not know the ID.
+     */
+    Mono<Optional<Employee>> fetchEmployeeById(int id);
+
+    /**
+     * Get many employees by ID
+     *
+     * @param ids IDs of desired Employees
+     * @return Employees in the order requested, omitting IDs which were not located.
+     */
+    Flux<Employee> getEmployeesByIds(List<Integer> ids);
+
+    /**
+     * Find employees matching a filter, using an index of the cached roster rather than scanning it
+     *
+     * @param query Salary range, age range and name filters, and the maximum number of results
+     * @return Matching employees in roster order
+     */
+    Flux<Employee> queryEmployees(EmployeeQuery query);
+
     /**
      * Create a new Employee in the back-end
      *
@@ -1,14 +1,13 @@
 package com.example.rqchallenge.employees;
 
-import static java.lang.String.format;
-
 /**
  * Custom exception thrown when an expected ID was not found.
+ * Unknown IDs are an expected outcome, often at high rates from scanners, so no stack trace is captured.
  */
 public class IdNotFoundException extends RuntimeException {
 
     public <T> IdNotFoundException(T id) {
-        super(format("ID %s could not be found.", id));
+        super("ID " + id + " could not be found.", null, false, false);
     }
 
 }
@@ -0,0 +1,15 @@
+package com.example.rqchallenge.employees;
+
+import static java.lang.String.format;
+
+/**
+ * An idempotency key was sent again with a different request body, so the request cannot be a repeat of the one
+ * the key was first used for.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super(format("Idempotency key %s was already used with a different request.", idempotencyKey));
+    }
+
+}
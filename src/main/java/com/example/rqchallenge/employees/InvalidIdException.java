@@ -0,0 +1,15 @@
+package com.example.rqchallenge.employees;
+
+/**
+ * A request gave an ID which is not an integer.
+ * Carries no stack trace or per-request state, so a single shared instance is thrown.
+ */
+public class InvalidIdException extends RuntimeException {
+
+    static final InvalidIdException INSTANCE = new InvalidIdException();
+
+    private InvalidIdException() {
+        super("Request contained invalid numeric format.", null, false, false);
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.example.rqchallenge.employees;
+
+import static java.lang.String.format;
+
+/**
+ * A query asked for a negative number of results.
+ */
+public class InvalidLimitException extends RuntimeException {
+
+    public InvalidLimitException(int limit) {
+        super(format("The limit must not be negative, but was %d.", limit));
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.example.rqchallenge.employees;
+
+/**
+ * No asynchronous creation job is known under the requested tracking ID, e.g. because it finished and was evicted.
+ * Like unknown employee IDs, an expected outcome, so no stack trace is captured.
+ */
+public class JobNotFoundException extends RuntimeException {
+
+    public JobNotFoundException(String jobId) {
+        super("Job " + jobId + " could not be found.", null, false, false);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.example.rqchallenge.employees;
+
+import java.util.Optional;
+
+/**
+ * Coordination point shared by the replicas of the service, used by the {@link RosterPrefetcher} so that one
+ * replica at a time refreshes a tenant's roster and the others take its result.
+ * The default is the {@link FileLeaseStore}; defining another LeaseStore bean (e.g. backed by a database or a
+ * distributed lock service) replaces it.
+ * Implementations may block, and are only called from the blocking scheduler.
+ */
+public interface LeaseStore {
+
+    /**
+     * Take the named lease if no other holder has it, without waiting.
+     *
+     * @param name Lease name.
+     * @return The lease, to be closed once the work it guards is done; Empty if it is held elsewhere.
+     */
+    Optional<Lease> tryAcquire(String name);
+
+    /**
+     * Share the result of work done under a lease.
+     *
+     * @param name    Lease name.
+     * @param content Result, replacing any previously published.
+     */
+    void publish(String name,
+                 byte[] content);
+
+    /**
+     * @param name Lease name.
+     * @return Most recently published result, Empty if there is none.
+     */
+    Optional<Snapshot> latest(String name);
+
+    /**
+     * A held lease; closing it releases the lease.
+     */
+    interface Lease extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+    /**
+     * A published result and when it was published.
+     */
+    final class Snapshot {
+
+        private final byte[] content;
+        private final long publishedAt;
+
+        public Snapshot(byte[] content,
+                        long publishedAt) {
+            this.content = content;
+            this.publishedAt = publishedAt;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return Publication time, in epoch milliseconds.
+         */
+        public long getPublishedAt() {
+            return publishedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.example.rqchallenge.employees;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limit for logging an expected but potentially high-rate condition: the first few occurrences in each interval
+ * are logged, the rest are only counted, and the count is reported with the next logged occurrence.
+ */
+final class LogSampler {
+
+    private final long intervalNanos;
+    private final int maxPerInterval;
+    private final AtomicLong windowStart;
+    private final AtomicInteger logged = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * @param intervalMs     Length (in ms) of each interval.
+     * @param maxPerInterval Occurrences logged per interval.
+     */
+    LogSampler(long intervalMs,
+               int maxPerInterval) {
+        this.intervalNanos = intervalMs * 1_000_000;
+        this.maxPerInterval = maxPerInterval;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Record an occurrence.
+     *
+     * @return Number of occurrences suppressed since the last one logged if this one should be logged, otherwise -1.
+     */
+    long sample() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            logged.set(0);
+        }
+        if (logged.incrementAndGet() <= maxPerInterval) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.example.rqchallenge.employees;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers employee IDs known not to exist, so repeated lookups of unknown IDs are answered without a call to the
+ * back-end.
+ * Two sources are consulted: an exact, bounded set of IDs for which the back-end recently returned 404, and a Bloom
+ * filter of the IDs in the last full roster, which proves an ID was absent from that roster. Both expire after a
+ * short time, and an ID is removed from both when an employee with that ID is created.
+ */
+public class NegativeCache {
+
+    private final ConcurrentHashMap<Integer, Long> recentMisses = new ConcurrentHashMap<>();
+    private final AtomicLong recentHits = new AtomicLong();
+    private final AtomicLong rosterHits = new AtomicLong();
+    private final long missTtlMs;
+    private final long rosterTtlMs;
+    private final int maxMisses;
+    private final double falsePositiveRate;
+    private volatile BloomFilter roster;
+    private volatile long rosterExpiresAt;
+
+    /**
+     * @param missTtlMs         Duration (in ms) a recorded 404 is trusted.
+     * @param rosterTtlMs       Duration (in ms) absence from the last full roster is trusted.
+     * @param maxMisses         Maximum number of recorded 404s.
+     * @param falsePositiveRate False positive rate of the roster filter, i.e. the fraction of unknown IDs which
+     *                          still go to the back-end.
+     */
+    public NegativeCache(long missTtlMs,
+                         long rosterTtlMs,
+                         int maxMisses,
+                         double falsePositiveRate) {
+        this.missTtlMs = missTtlMs;
+        this.rosterTtlMs = rosterTtlMs;
+        this.maxMisses = maxMisses;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * @return A new, empty negative cache with the same settings, e.g. for another tenant.
+     */
+    public NegativeCache emptyCopy() {
+        return new NegativeCache(missTtlMs, rosterTtlMs, maxMisses, falsePositiveRate);
+    }
+
+    /**
+     * @param id Employee ID.
+     * @return True if the ID can be answered as not found without asking the back-end.
+     */
+    public boolean isKnownMissing(int id) {
+        long now = System.currentTimeMillis();
+        Long expiresAt = recentMisses.get(id);
+        if (expiresAt != null) {
+            if (expiresAt > now) {
+                recentHits.incrementAndGet();
+                return true;
+            }
+            recentMisses.remove(id, expiresAt);
+        }
+        BloomFilter filter = roster;
+        if (filter != null && rosterExpiresAt > now && !filter.mightContain(id)) {
+            rosterHits.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record that the back-end does not know an ID. Ignored if the set is full of unexpired entries.
+     */
+    public void recordMiss(int id) {
+        long now = System.currentTimeMillis();
+        if (recentMisses.size() >= maxMisses) {
+            recentMisses.values()
+                        .removeIf(expiresAt -> expiresAt <= now);
+            if (recentMisses.size() >= maxMisses) {
+                return;
+            }
+        }
+        recentMisses.put(id, now + missTtlMs);
+    }
+
+    /**
+     * Replace the roster filter with the IDs of a freshly loaded full roster.
+     */
+    public void rebuild(Collection<Integer> ids) {
+        BloomFilter filter = new BloomFilter(Math.max(1024, ids.size() * 2), falsePositiveRate);
+        ids.forEach(id -> {
+            filter.add(id);
+            recentMisses.remove(id);
+        });
+        roster = filter;
+        rosterExpiresAt = System.currentTimeMillis() + rosterTtlMs;
+    }
+
+    /**
+     * Forget any negative answer for an ID, e.g. because an employee was just created with it.
+     */
+    public void invalidate(int id) {
+        recentMisses.remove(id);
+        BloomFilter filter = roster;
+        if (filter != null) {
+            filter.add(id);
+        }
+    }
+
+    public int size() {
+        return recentMisses.size();
+    }
+
+    /**
+     * @return Lookups answered from recorded 404s.
+     */
+    public long getRecentHits() {
+        return recentHits.get();
+    }
+
+    /**
+     * @return Lookups answered from absence in the roster filter.
+     */
+    public long getRosterHits() {
+        return rosterHits.get();
+    }
+
+}
@@ -0,0 +1,345 @@
+package com.example.rqchallenge.employees;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk cache of profile images, filled lazily from the back-end.
+ * Concurrent requests for an image which is not cached yet share a single upstream fetch, and the least recently
+ * used images are evicted once the cache grows past its byte budget.
+ * Images are stored as plain files so they can be served with zero-copy file transfer. Each fetch writes a file of
+ * its own, and the file of an evicted image is only deleted after {@code employee.image.evict-delay-ms}, so a
+ * response which looked the image up just before the eviction can still open it; an already open file stays
+ * readable after its deletion.
+ * Images are fetched from the image host of the requesting tenant and cached apart per tenant, as two tenants'
+ * rosters may use the same path for different images.
+ */
+@Component
+public class ProfileImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileImageCache.class);
+    private static final String PART_SUFFIX = ".part";
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,8}");
+    private static final Pattern TENANT_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+    /**
+     * Cache file name: the image key's tenant name and UUID, the fetch stamp, then the key's extension, if any.
+     */
+    private static final Pattern FILE_NAME = Pattern.compile("([A-Za-z0-9_-]+-[0-9a-f]{8}(?:-[0-9a-f]{4}){3}-[0-9a-f]{12})"
+                                                                     + "-[0-9a-f]+(\\.[a-z0-9]{1,8})?");
+    private final WebClient client;
+    private final Map<String, String> imageBaseUris = new HashMap<>();
+    private final Scheduler blockingScheduler;
+    private final ConcurrentHashMap<String, CachedImage> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Mono<CachedImage>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private Path directory;
+
+    /**
+     * Directory holding cached images, defaults to "employee-images" under the system temp directory.
+     */
+    @Value("${employee.image.cache-dir:}")
+    private String cacheDir;
+
+    /**
+     * Maximum total size (in bytes) of cached images.
+     */
+    @Value("${employee.image.cache-max-bytes:268435456}")
+    private long maxBytes;
+
+    /**
+     * Delay (in ms) between the eviction of an image and the deletion of its file.
+     */
+    @Value("${employee.image.evict-delay-ms:60000}")
+    private long evictDelayMs;
+
+    /**
+     * Message to return on general service unavailability.
+     */
+    @Value("${employee.unavailable.message:The service is currently unavailable.  We apologize for the inconvenience, please try again later.}")
+    private String unavailableMessage;
+
+    @Autowired
+    public ProfileImageCache(@Autowired WebClient.Builder webClientBuilder,
+                             @Value("${employee.image.base-uri:https://dummy.restapiexample.com}") String imageBaseUri,
+                             @Autowired TenantProperties tenantProperties,
+                             @Autowired Scheduler blockingScheduler) {
+        this.client = webClientBuilder.build();
+        this.blockingScheduler = blockingScheduler;
+        imageBaseUris.put(TenantRegistry.DEFAULT_TENANT, imageBaseUri);
+        tenantProperties.getTenants()
+                        .forEach((name, config) -> {
+                            // the tenant name is part of the cache file names
+                            if (!TENANT_NAME.matcher(name)
+                                            .matches()) {
+                                throw new IllegalStateException("Tenant name not usable for profile image files: " + name);
+                            }
+                            imageBaseUris.put(name, config.getImageBaseUri() == null
+                                    ? config.getBaseUri()
+                                    : config.getImageBaseUri());
+                        });
+    }
+
+    /**
+     * Create the cache directory and index any images left from a previous run.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        directory = cacheDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "employee-images")
+                : Paths.get(cacheDir);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                String name = file.getFileName()
+                                  .toString();
+                if (name.endsWith(PART_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (FILE_NAME.matcher(name)
+                                    .matches()) {
+                    index(file);
+                }
+            }
+        }
+        evictIfNeeded();
+        log.info("Profile image cache at {} holds {} bytes", directory, totalBytes.get());
+    }
+
+    /**
+     * Get an image of the tenant of the current request, fetching it from the back-end if it is not cached.
+     *
+     * @param imagePath Relative URL of the image, as given by {@link Employee#getProfileImage()}.
+     * @return Cached image.
+     */
+    public Mono<CachedImage> get(String imagePath) {
+        return Mono.deferContextual(context -> get(TenantRegistry.tenantName(context), imagePath));
+    }
+
+    private Mono<CachedImage> get(String tenant,
+                                  String imagePath) {
+        String baseUri = imageBaseUris.get(tenant);
+        if (baseUri == null) {
+            return Mono.error(new UnknownTenantException(tenant));
+        }
+        Optional<URI> uri = upstreamUri(baseUri, imagePath);
+        if (uri.isEmpty()) {
+            return Mono.error(new IdNotFoundException(imagePath));
+        }
+        String key = key(tenant, imagePath);
+        CachedImage cached = entries.get(key);
+        if (cached != null) {
+            cached.touch();
+            return Mono.just(cached);
+        }
+        // coalesce concurrent misses onto one fetch; removed once it completes so failures are not cached
+        return inFlight.computeIfAbsent(key, k -> fetch(uri.get(), imagePath, k).doFinally(signal -> inFlight.remove(k))
+                                                                                .cache());
+    }
+
+    /**
+     * Key of an image: the tenant name and a name-based UUID of the tenant name and relative URL, keeping the
+     * extension of its path, if it has a plain one, for media type lookup.
+     */
+    static String key(String tenant,
+                      String imagePath) {
+        int end = imagePath.length();
+        for (char delimiter : new char[]{'?', '#'}) {
+            int index = imagePath.indexOf(delimiter);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        String path = imagePath.substring(0, end);
+        int dot = path.lastIndexOf('.');
+        String extension = dot > path.lastIndexOf('/') ? path.substring(dot)
+                                                             .toLowerCase(Locale.ROOT) : "";
+        if (!EXTENSION.matcher(extension)
+                      .matches()) {
+            extension = "";
+        }
+        return tenant + "-" + UUID.nameUUIDFromBytes((tenant + "\n" + imagePath).getBytes(StandardCharsets.UTF_8)) + extension;
+    }
+
+    /**
+     * @return Key of the image held in a cache file.
+     */
+    private static String key(Path file) {
+        Matcher name = FILE_NAME.matcher(file.getFileName()
+                                             .toString());
+        if (!name.matches()) {
+            throw new IllegalArgumentException("Not a cached image: " + file);
+        }
+        return name.group(1) + (name.group(2) == null ? "" : name.group(2));
+    }
+
+    /**
+     * @return Name of a new cache file for the image, distinct from any earlier one for the same key.
+     */
+    private static String fileName(String key) {
+        // neither tenant names nor UUIDs contain dots, so the extension is whatever follows one
+        int dot = key.indexOf('.');
+        int end = dot < 0 ? key.length() : dot;
+        return key.substring(0, end) + "-" + Long.toHexString(System.nanoTime()) + key.substring(end);
+    }
+
+    private Mono<CachedImage> fetch(URI uri,
+                                    String imagePath,
+                                    String key) {
+        Path target = directory.resolve(fileName(key));
+        Path part = directory.resolve(target.getFileName() + PART_SUFFIX);
+        Flux<DataBuffer> body = client.get()
+                                      .uri(uri)
+                                      .retrieve()
+                                      .onStatus(HttpStatus.NOT_FOUND::equals,
+                                                response -> Mono.just(new IdNotFoundException(imagePath)))
+                                      .onStatus(HttpStatus::isError,
+                                                response -> Mono.just(new ServiceException(unavailableMessage)))
+                                      .bodyToFlux(DataBuffer.class)
+                                      .onErrorMap(WebClientRequestException.class,
+                                                  e -> new ServiceException(unavailableMessage));
+        return Mono.defer(() -> DataBufferUtils.write(body, part))
+                   .subscribeOn(blockingScheduler)
+                   .then(Mono.fromCallable(() -> {
+                                 Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+                                 CachedImage image = index(target);
+                                 evictIfNeeded();
+                                 return image;
+                             })
+                             .subscribeOn(blockingScheduler))
+                   .onErrorResume(e -> Mono.fromCallable(() -> Files.deleteIfExists(part))
+                                           .subscribeOn(blockingScheduler)
+                                           .then(Mono.<CachedImage>error(e)));
+    }
+
+    /**
+     * Only paths on the image host are proxied: a path naming a scheme or host of its own, such as the
+     * protocol-relative "//host/x", or holding backslashes or parent directory segments is rejected.
+     * The URI is built against the base URI without template expansion, so braces in the path are sent as such.
+     *
+     * @return URI of the image on the image host, or empty if the path is rejected.
+     */
+    static Optional<URI> upstreamUri(String baseUri,
+                                     String imagePath) {
+        if (imagePath.startsWith("//") || imagePath.contains("\\") || imagePath.contains("..")) {
+            return Optional.empty();
+        }
+        UriComponents relative;
+        try {
+            relative = UriComponentsBuilder.fromUriString(imagePath)
+                                           .build();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        String path = relative.getPath();
+        if (relative.getScheme() != null || relative.getHost() != null || path == null || path.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(UriComponentsBuilder.fromUriString(baseUri)
+                                               .path(path.startsWith("/") ? path : "/" + path)
+                                               .query(relative.getQuery())
+                                               .build()
+                                               .encode()
+                                               .toUri());
+    }
+
+    /**
+     * Add a cache file to the index, retiring the file it replaces, e.g. one left by an earlier run or a concurrent
+     * fetch; of two files for the same key, the more recently fetched one is kept.
+     */
+    private CachedImage index(Path file) throws IOException {
+        String key = key(file);
+        CachedImage image = new CachedImage(file,
+                                            Files.size(file),
+                                            Files.getLastModifiedTime(file)
+                                                 .toMillis(),
+                                            MediaTypeFactory.getMediaType(key)
+                                                            .orElse(MediaType.APPLICATION_OCTET_STREAM));
+        CachedImage[] replaced = new CachedImage[1];
+        CachedImage kept = entries.merge(key, image, (previous, fetched) -> {
+            if (fetched.getLastModified() >= previous.getLastModified()) {
+                replaced[0] = previous;
+                return fetched;
+            }
+            replaced[0] = fetched;
+            return previous;
+        });
+        if (kept == image) {
+            totalBytes.addAndGet(image.getSize() - (replaced[0] == null ? 0 : replaced[0].getSize()));
+        }
+        if (replaced[0] != null) {
+            retire(replaced[0]);
+        }
+        return kept;
+    }
+
+    /**
+     * Remove least recently used images until the cache is back under 90% of its budget.
+     */
+    private synchronized void evictIfNeeded() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        long target = maxBytes / 10 * 9;
+        List<CachedImage> byAge = entries.values()
+                                         .stream()
+                                         .sorted(Comparator.comparingLong(CachedImage::getLastAccess))
+                                         .collect(Collectors.toList());
+        for (CachedImage image : byAge) {
+            if (totalBytes.get() <= target) {
+                break;
+            }
+            if (entries.remove(key(image.getPath()), image)) {
+                totalBytes.addAndGet(-image.getSize());
+                retire(image);
+            }
+        }
+    }
+
+    /**
+     * Delete the file of an image which is no longer indexed, once responses which may have looked it up have had
+     * time to open it.
+     */
+    private void retire(CachedImage image) {
+        Mono.delay(Duration.ofMillis(evictDelayMs), blockingScheduler)
+            .then(Mono.fromCallable(() -> Files.deleteIfExists(image.getPath())))
+            .subscribe(null, e -> log.warn("Could not delete evicted profile image {}: {}", image.getPath(), e.toString()));
+    }
+
+}
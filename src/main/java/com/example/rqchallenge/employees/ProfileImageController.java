@@ -0,0 +1,65 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Proxies employee profile images through the {@link ProfileImageCache}, so clients rendering many images do not
+ * each go to the back-end.
+ * Images are returned as file resources: WebFlux then answers conditional GETs (ETag / Last-Modified) with 304,
+ * serves Range requests with 206, and writes full bodies with zero-copy file transfer
+ * ({@link org.springframework.http.ZeroCopyHttpOutputMessage}).
+ */
+@RestController
+public class ProfileImageController {
+
+    private final IEmployeeService service;
+    private final ProfileImageCache imageCache;
+
+    /**
+     * Duration (in seconds) clients may cache an image without revalidating.
+     */
+    @Value("${employee.image.max-age-seconds:3600}")
+    private long maxAgeSeconds;
+
+    public ProfileImageController(@Autowired IEmployeeService service,
+                                  @Autowired ProfileImageCache imageCache) {
+        this.service = service;
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * Get the profile image of an employee.
+     *
+     * @param id ID of the employee.
+     * @return Image content, or 404 if the employee has no profile image.
+     */
+    @GetMapping("/image/{id}")
+    public Mono<ResponseEntity<Resource>> getProfileImage(@PathVariable String id) {
+        int intId = EmployeeIds.parse(id);
+        return service.getEmployeeById(intId)
+                      .flatMap(x -> x.map(Mono::just)
+                                     .orElseThrow(() -> new IdNotFoundException(intId)))
+                      .map(Employee::getProfileImage)
+                      .filter(path -> path != null && !path.isBlank())
+                      .switchIfEmpty(Mono.error(() -> new IdNotFoundException(intId)))
+                      .flatMap(imageCache::get)
+                      .map(image -> ResponseEntity.ok()
+                                                  .eTag(image.getETag())
+                                                  .lastModified(image.getLastModified())
+                                                  .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)))
+                                                  .contentType(image.getMediaType())
+                                                  .body(new FileSystemResource(image.getPath())));
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.example.rqchallenge.employees;
+
+import static java.lang.String.format;
+
+/**
+ * An asynchronous creation was rejected because the {@link CreateJobQueue} is full.
+ * Local backpressure rather than a back-end failure, so it is answered with 503 and a Retry-After.
+ */
+public class QueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public QueueFullException(long retryAfterSeconds) {
+        super(format("Too many creations are waiting for the back-end.  Please try again in %d second(s).",
+                     retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
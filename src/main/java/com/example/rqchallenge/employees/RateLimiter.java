@@ -0,0 +1,47 @@
+package com.example.rqchallenge.employees;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking rate limiter for calls to the back-end API.
+ * Each permit reserves the next free time slot, so callers are delayed on a timer rather than parked on a thread,
+ * and up to {@code burst} permits may be granted immediately after an idle period.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong nextFreeSlot;
+
+    public RateLimiter(double permitsPerSecond,
+                       int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+        this.nextFreeSlot = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Reserve a permit.
+     *
+     * @return Mono which completes once the reserved time slot has been reached.
+     */
+    public Mono<Void> acquire() {
+        long now = System.nanoTime();
+        long earliest = now - burstNanos;
+        long reserved = nextFreeSlot.getAndUpdate(slot -> Math.max(slot, earliest) + intervalNanos);
+        long waitNanos = Math.max(reserved, earliest) - now;
+        if (waitNanos <= 0) {
+            return Mono.empty();
+        }
+        return Mono.delay(Duration.ofNanos(waitNanos))
+                   .then();
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.example.rqchallenge.employees;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One upstream request and its response, as written to the {@link UpstreamRecorder} log.
+ */
+public class RecordedExchange {
+
+    private String tenant;
+    private String method;
+    private String uri;
+    private String requestBody;
+    private int status;
+    private Map<String, List<String>> headers;
+    private String body;
+    private long offsetMs;
+    private long latencyMs;
+
+    /**
+     * Default constructor provided for JSON deserialization.
+     */
+    @SuppressWarnings("unused")
+    public RecordedExchange() {
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Request path and query string, without the scheme and host, so a recording can be replayed under another
+     * base URI.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    /**
+     * Request body as sent, or null if there was none. Recorded for reference only; replay matches on the tenant,
+     * method and URI.
+     */
+    public String getRequestBody() {
+        return requestBody;
+    }
+
+    public void setRequestBody(String requestBody) {
+        this.requestBody = requestBody;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, List<String>> headers) {
+        this.headers = headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    /**
+     * Time (in ms) from the start of the recording to the request being sent.
+     */
+    public long getOffsetMs() {
+        return offsetMs;
+    }
+
+    public void setOffsetMs(long offsetMs) {
+        this.offsetMs = offsetMs;
+    }
+
+    /**
+     * Time (in ms) from the request being sent to the response body having been read.
+     */
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget and upstream success rate of one tenant, so that a failing back-end cannot use up the retries, or
+ * stretch the backoff, of the others.
+ * The budget grows by a fraction of a retry per request up to a cap, and each retry draws one whole retry from it.
+ *
+ * @see RetryPolicy
+ */
+public class RetryBudget {
+
+    /**
+     * Weight of each attempt in the success rate average, roughly the last 50 attempts.
+     */
+    private static final double SUCCESS_RATE_ALPHA = 0.02;
+    private static final long TOKEN = 1000;
+
+    /**
+     * Budget in thousandths of a retry.
+     */
+    private final AtomicLong tokens;
+    private final long perRequest;
+    private final long cap;
+    private final AtomicLong successRate = new AtomicLong(Double.doubleToLongBits(1.0));
+
+    /**
+     * @param ratio Retries allowed per request, on average.
+     * @param max   Retries the budget can bank, so a quiet tenant can still retry a burst of failures; the budget
+     *              starts full.
+     */
+    public RetryBudget(double ratio,
+                       int max) {
+        this.perRequest = Math.round(ratio * TOKEN);
+        this.cap = max * TOKEN;
+        this.tokens = new AtomicLong(cap);
+    }
+
+    /**
+     * Credit the budget for one request.
+     */
+    public void deposit() {
+        tokens.getAndUpdate(current -> Math.min(cap, current + perRequest));
+    }
+
+    /**
+     * @return Whether a whole retry was available, and was taken from the budget.
+     */
+    public boolean withdraw() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * @return Retries left in the budget, possibly fractional.
+     */
+    public double available() {
+        return (double) tokens.get() / TOKEN;
+    }
+
+    /**
+     * Fold the outcome of one upstream attempt into the success rate.
+     */
+    public void recordOutcome(boolean success) {
+        successRate.getAndUpdate(bits -> {
+            double rate = Double.longBitsToDouble(bits);
+            return Double.doubleToLongBits(rate + SUCCESS_RATE_ALPHA * ((success ? 1 : 0) - rate));
+        });
+    }
+
+    /**
+     * @return Moving average of the fraction of upstream attempts which did not fail with ServiceException.
+     */
+    public double successRate() {
+        return Double.longBitsToDouble(successRate.get());
+    }
+
+    /**
+     * Register gauges of the budget and success rate, tagged with the tenant.
+     */
+    public void bindTo(MeterRegistry meterRegistry,
+                       String tenant) {
+        Gauge.builder("employee.retry.budget", this, RetryBudget::available)
+             .tag("tenant", tenant)
+             .register(meterRegistry);
+        Gauge.builder("employee.retry.success-rate", this, RetryBudget::successRate)
+             .tag("tenant", tenant)
+             .register(meterRegistry);
+    }
+
+}
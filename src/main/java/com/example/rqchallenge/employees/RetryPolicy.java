@@ -0,0 +1,228 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Retry policy for upstream calls, shared by every operation of the service.
+ * <ul>
+ *     <li>Only ServiceException is retried, with exponential backoff and jitter configured per operation as
+ *     {@code employee.retry.<operation>.max} and {@code employee.retry.<operation>.duration.ms}.</li>
+ *     <li>Create and delete are not idempotent: a 5xx may come after the back-end applied the change, so only 429,
+ *     which the back-end answers without processing the request, is retried for them.</li>
+ *     <li>A Retry-After from the back-end is a lower bound on the next delay.</li>
+ *     <li>Backoff stretches as the observed success rate of the tenant's upstream attempts drops, so a failing
+ *     back-end is not retried at full rate.</li>
+ *     <li>Retries draw from the tenant's {@link RetryBudget}, which grows by {@code employee.retry.budget.ratio} per
+ *     request up to {@code employee.retry.budget.max}, so they can never multiply the load on an unhealthy back-end; retries refused by the budget or the
+ *     deadline are counted.</li>
+ *     <li>Exhausting the retries of a throttled call fails with UpstreamThrottledException (503 with the last
+ *     Retry-After), any other with ServiceException (502).</li>
+ * </ul>
+ */
+@Component
+public class RetryPolicy {
+
+    private static final double JITTER = 0.35;
+    /**
+     * Operations whose settings default to those of a shared group.
+     */
+    private static final Map<String, String> GROUPS = Map.of("create", "change", "delete", "change");
+    /**
+     * Retries of each group unless configured; operations outside these groups are not retried by default.
+     */
+    private static final Map<String, Integer> DEFAULT_MAX = Map.of("get", 3, "change", 5);
+    /**
+     * Groups of operations which are not idempotent, so are only retried when the back-end refused them with 429.
+     */
+    private static final Set<String> NON_IDEMPOTENT = Set.of("change");
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Settings> settings = new ConcurrentHashMap<>();
+    private final double budgetRatio;
+    private final int budgetMax;
+
+    /**
+     * Lowest success rate used to stretch backoff, i.e. the largest stretch factor is its inverse.
+     */
+    @Value("${employee.retry.min-success-rate:0.1}")
+    private double minSuccessRate;
+
+    /**
+     * Longest delay between two attempts, in ms, unless the back-end asks for longer.
+     */
+    @Value("${employee.retry.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    /**
+     * Message to return on retry exhaustion.
+     */
+    @Value("${employee.retry.message:The operation could not be completed after several attempts.  We apologize for the inconvenience, please try again later.}")
+    private String retryMessage;
+
+    /**
+     * @param budgetRatio Retries allowed per request, on average.
+     * @param budgetMax   Most retries a tenant's budget can bank, so a quiet tenant can still retry a burst of
+     *                    failures.
+     */
+    @Autowired
+    public RetryPolicy(@Autowired Environment environment,
+                       @Autowired MeterRegistry meterRegistry,
+                       @Value("${employee.retry.budget.ratio:0.1}") double budgetRatio,
+                       @Value("${employee.retry.budget.max:10}") int budgetMax) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.budgetRatio = budgetRatio;
+        this.budgetMax = budgetMax;
+    }
+
+    /**
+     * @return Full retry budget for a new tenant, as configured.
+     */
+    public RetryBudget newBudget() {
+        return new RetryBudget(budgetRatio, budgetMax);
+    }
+
+    /**
+     * Apply the policy to an upstream call.
+     *
+     * @param budget    Retry budget of the tenant called, which also tracks its success rate.
+     * @param operation Operation name, selecting the settings and tagging the metrics.
+     * @param deadline  Deadline of the request, if it has one; a retry whose delay would outlast it is not made.
+     * @param <T>       Type of the upstream response.
+     * @return Function for {@code Mono.transform} which retries the call it is given.
+     */
+    public <T> Function<Mono<T>, Mono<T>> retry(RetryBudget budget,
+                                                String operation,
+                                                Optional<Deadline> deadline) {
+        Settings operationSettings = settings.computeIfAbsent(operation, this::settingsFor);
+        return call -> Mono.defer(() -> {
+            budget.deposit();
+            return call.doOnSuccess(response -> budget.recordOutcome(true))
+                       .doOnError(ServiceException.class, e -> budget.recordOutcome(false))
+                       .retryWhen(Retry.from(signals -> signals.concatMap(signal -> next(budget,
+                                                                                          operation,
+                                                                                          operationSettings,
+                                                                                          deadline,
+                                                                                          signal.copy()))));
+        });
+    }
+
+    /**
+     * Decide on one failed attempt: complete after a delay to retry, or fail to give up.
+     */
+    private Mono<Retry.RetrySignal> next(RetryBudget budget,
+                                         String operation,
+                                         Settings operationSettings,
+                                         Optional<Deadline> deadline,
+                                         Retry.RetrySignal signal) {
+        Throwable failure = signal.failure();
+        if (!(failure instanceof ServiceException)) {
+            return Mono.error(failure);
+        }
+        boolean throttled = failure instanceof UpstreamThrottledException;
+        if (operationSettings.maxRetries == 0 || (!operationSettings.idempotent && !throttled)) {
+            return Mono.error(failure);
+        }
+        Optional<Duration> retryAfter = throttled
+                ? ((UpstreamThrottledException) failure).getRetryAfter()
+                : Optional.empty();
+        if (signal.totalRetries() >= operationSettings.maxRetries) {
+            count("employee.retry.exhausted", operation);
+            return Mono.error(throttled
+                                      ? new UpstreamThrottledException(retryMessage, retryAfter.orElse(null))
+                                      : new ServiceException(retryMessage));
+        }
+        Duration delay = backoff(budget, operationSettings, signal.totalRetries());
+        if (retryAfter.isPresent() && retryAfter.get()
+                                                .compareTo(delay) > 0) {
+            delay = retryAfter.get();
+        }
+        if (deadline.isPresent() && !deadline.get()
+                                             .allows(delay)) {
+            suppressed(operation, "deadline");
+            return Mono.error(new DeadlineExceededException());
+        }
+        if (!budget.withdraw()) {
+            suppressed(operation, "budget");
+            return Mono.error(failure);
+        }
+        count("employee.retry.attempts", operation);
+        return Mono.delay(delay)
+                   .thenReturn(signal)
+                   .transform(StageTrace.stage("retry-backoff"));
+    }
+
+    /**
+     * Exponential backoff with jitter, stretched by the inverse of the recent success rate.
+     */
+    private Duration backoff(RetryBudget budget,
+                             Settings operationSettings,
+                             long retries) {
+        double nominal = operationSettings.durationMs * Math.pow(2, Math.min(retries, 30));
+        double jittered = nominal * (1 + JITTER * (2 * ThreadLocalRandom.current()
+                                                                         .nextDouble() - 1));
+        double stretched = jittered / Math.max(minSuccessRate, budget.successRate());
+        return Duration.ofMillis((long) Math.min(maxBackoffMs, Math.max(operationSettings.durationMs, stretched)));
+    }
+
+    private void suppressed(String operation,
+                            String reason) {
+        meterRegistry.counter("employee.retry.suppressed", "operation", operation, "reason", reason)
+                     .increment();
+    }
+
+    private void count(String name,
+                       String operation) {
+        meterRegistry.counter(name, "operation", operation)
+                     .increment();
+    }
+
+    /**
+     * Settings of an operation; unset ones fall back to those of its group (e.g. "change" for "create"), then to
+     * the built-in defaults.
+     */
+    private Settings settingsFor(String operation) {
+        String group = GROUPS.getOrDefault(operation, operation);
+        int defaultMax = DEFAULT_MAX.getOrDefault(group, 0);
+        int max = environment.getProperty("employee.retry." + operation + ".max", Integer.class,
+                                          environment.getProperty("employee.retry." + group + ".max", Integer.class,
+                                                                  defaultMax));
+        int durationMs = environment.getProperty("employee.retry." + operation + ".duration.ms", Integer.class,
+                                                 environment.getProperty("employee.retry." + group + ".duration.ms",
+                                                                         Integer.class,
+                                                                         2200));
+        return new Settings(max, durationMs, !NON_IDEMPOTENT.contains(group));
+    }
+
+    private static class Settings {
+
+        private final int maxRetries;
+        private final int durationMs;
+        private final boolean idempotent;
+
+        private Settings(int maxRetries,
+                         int durationMs,
+                         boolean idempotent) {
+            this.maxRetries = maxRetries;
+            this.durationMs = durationMs;
+            this.idempotent = idempotent;
+        }
+
+    }
+
+}
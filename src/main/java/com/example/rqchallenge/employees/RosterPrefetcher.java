@@ -0,0 +1,289 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Refreshes each tenant's roster ahead of its cache expiring, rather than leaving it to whichever request arrives
+ * first after {@code employee.cache.throttle-time-ms}, which across many replicas lines the refreshes up into bursts
+ * on the back-end.
+ * Each refresh is scheduled at {@code employee.prefetch.interval-ratio} of the throttle time, jittered by
+ * {@code employee.prefetch.jitter}, and coordinated through the {@link LeaseStore}:
+ * <ul>
+ *     <li>the replica which takes the tenant's lease fetches the roster on the BACKGROUND lane and publishes it,
+ *     unless another replica published one recently enough, which it loads instead;</li>
+ *     <li>replicas which find the lease taken load the latest published roster if it is newer than their own.</li>
+ * </ul>
+ * A published roster older than the refresh interval is never loaded, and a loaded one is only fresh in the cache for
+ * what remains of the throttle time since it was published. Leases are named after the tenant and its back-end's base
+ * URI, so deployments sharing a lease store only share rosters of the same back-end.
+ * A failed refresh, in particular one the back-end throttled, backs off exponentially from
+ * {@code employee.prefetch.min-backoff-ms}, honouring any Retry-After, up to {@code employee.prefetch.max-backoff-ms}.
+ */
+@Component
+public class RosterPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RosterPrefetcher.class);
+    private static final TypeReference<List<Employee>> ROSTER_TYPE = new TypeReference<>() {
+    };
+    private final IEmployeeService service;
+    private final TenantRegistry tenants;
+    private final LeaseStore leaseStore;
+    private final ObjectMapper mapper;
+    private final Scheduler blockingScheduler;
+    private final MeterRegistry meterRegistry;
+    private final List<Disposable> schedules = new ArrayList<>();
+
+    /**
+     * Whether to refresh rosters on a schedule; the cache otherwise refreshes when requested after expiring.
+     */
+    @Value("${employee.prefetch.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Refresh interval as a fraction of the tenant's cache throttle time.
+     */
+    @Value("${employee.prefetch.interval-ratio:0.9}")
+    private double intervalRatio;
+
+    /**
+     * Random spread of each delay, as a fraction of it either way.
+     */
+    @Value("${employee.prefetch.jitter:0.1}")
+    private double jitter;
+
+    /**
+     * First delay (in ms) after a failed refresh, doubling with each further failure.
+     */
+    @Value("${employee.prefetch.min-backoff-ms:30000}")
+    private long minBackoffMs;
+
+    /**
+     * Longest delay (in ms) after failed refreshes.
+     */
+    @Value("${employee.prefetch.max-backoff-ms:1800000}")
+    private long maxBackoffMs;
+
+    @Autowired
+    public RosterPrefetcher(@Autowired IEmployeeService service,
+                            @Autowired TenantRegistry tenants,
+                            @Autowired LeaseStore leaseStore,
+                            @Autowired ObjectMapper mapper,
+                            @Autowired Scheduler blockingScheduler,
+                            @Autowired MeterRegistry meterRegistry) {
+        this.service = service;
+        this.tenants = tenants;
+        this.leaseStore = leaseStore;
+        this.mapper = mapper;
+        this.blockingScheduler = blockingScheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        tenants.all()
+               .forEach(tenant -> {
+                   Schedule schedule = schedule(tenant);
+                   schedules.add(Mono.defer(() -> Mono.delay(jittered(schedule.nextDelayMs)))
+                                     .then(Mono.defer(() -> refresh(schedule)))
+                                     .repeat()
+                                     .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, tenant.getName())
+                                                                     .put(UpstreamScheduler.LANE_CONTEXT_KEY,
+                                                                          UpstreamScheduler.Lane.BACKGROUND))
+                                     .subscribe());
+               });
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        schedules.forEach(Disposable::dispose);
+        schedules.clear();
+    }
+
+    Schedule schedule(Tenant tenant) {
+        return new Schedule(tenant.getName(),
+                            leaseName(tenant),
+                            (long) (tenant.getCache()
+                                          .getThrottleTime() * intervalRatio));
+    }
+
+    /**
+     * @return Lease of the tenant's roster, distinct for each back-end the tenant name may stand for.
+     */
+    static String leaseName(Tenant tenant) {
+        return "roster-" + tenant.getName() + "-" + UUID.nameUUIDFromBytes(String.valueOf(tenant.getBaseUri())
+                                                                                       .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Duration jittered(long delayMs) {
+        double spread = 1 + jitter * (2 * ThreadLocalRandom.current()
+                                                           .nextDouble() - 1);
+        return Duration.ofMillis(Math.max(0, (long) (delayMs * spread)));
+    }
+
+    /**
+     * One scheduled refresh of a tenant's roster; never fails, but sets the delay before the next.
+     */
+    Mono<Void> refresh(Schedule schedule) {
+        String lease = schedule.lease;
+        return Mono.fromCallable(() -> leaseStore.tryAcquire(lease))
+                   .subscribeOn(blockingScheduler)
+                   .flatMap(held -> held.map(l -> Mono.usingWhen(Mono.just(l),
+                                                                  x -> refreshUnderLease(schedule, lease),
+                                                                  x -> Mono.fromRunnable(x::close)
+                                                                           .subscribeOn(blockingScheduler)))
+                                        .orElseGet(() -> adoptLatest(schedule, lease)))
+                   .doOnNext(outcome -> {
+                       count(schedule, outcome);
+                       log.debug("Roster prefetch for tenant {}: {}", schedule.tenant, outcome);
+                       schedule.failures = 0;
+                       schedule.nextDelayMs = schedule.intervalMs;
+                   })
+                   .onErrorResume(e -> {
+                       count(schedule, "failed");
+                       schedule.failures++;
+                       schedule.nextDelayMs = backoffMs(schedule.failures, e);
+                       log.warn("Roster prefetch for tenant {} failed, next attempt in {} ms",
+                                schedule.tenant, schedule.nextDelayMs, e);
+                       return Mono.empty();
+                   })
+                   .then();
+    }
+
+    /**
+     * Holding the lease: load a recent enough roster published by another replica, otherwise fetch and publish one.
+     */
+    private Mono<String> refreshUnderLease(Schedule schedule,
+                                          String lease) {
+        long freshAfter = System.currentTimeMillis() - schedule.intervalMs / 2;
+        return latest(lease).filter(snapshot -> snapshot.getPublishedAt() > freshAfter)
+                            .flatMap(snapshot -> adopt(schedule, snapshot))
+                            .switchIfEmpty(Mono.defer(() -> service.refreshAllEmployees()
+                                                                   .flatMap(roster -> publish(schedule, lease, roster))));
+    }
+
+    /**
+     * Lease held elsewhere: load the latest published roster if we do not have it yet and it is recent.
+     */
+    private Mono<String> adoptLatest(Schedule schedule,
+                                     String lease) {
+        return latest(lease).flatMap(snapshot -> adopt(schedule, snapshot))
+                            .defaultIfEmpty("skipped");
+    }
+
+    private Mono<LeaseStore.Snapshot> latest(String lease) {
+        return Mono.fromCallable(() -> leaseStore.latest(lease))
+                   .subscribeOn(blockingScheduler)
+                   .flatMap(Mono::justOrEmpty);
+    }
+
+    private Mono<String> adopt(Schedule schedule,
+                               LeaseStore.Snapshot snapshot) {
+        if (snapshot.getPublishedAt() <= schedule.adoptedAt) {
+            return Mono.just("skipped");
+        }
+        if (snapshot.getPublishedAt() < System.currentTimeMillis() - schedule.intervalMs) {
+            // e.g. left behind by a replica which has since stopped refreshing; it would only be served as fresh
+            return Mono.just("stale");
+        }
+        return Mono.fromCallable(() -> mapper.readValue(snapshot.getContent(), ROSTER_TYPE))
+                   .subscribeOn(blockingScheduler)
+                   .flatMap(roster -> service.loadAllEmployees(roster, snapshot.getPublishedAt()))
+                   .doOnSuccess(x -> schedule.adoptedAt = snapshot.getPublishedAt())
+                   .thenReturn("adopted");
+    }
+
+    private Mono<String> publish(Schedule schedule,
+                                 String lease,
+                                 List<Employee> roster) {
+        return Mono.fromCallable(() -> {
+                       long now = System.currentTimeMillis();
+                       leaseStore.publish(lease, serialize(roster));
+                       schedule.adoptedAt = now;
+                       return "fetched";
+                   })
+                   .subscribeOn(blockingScheduler);
+    }
+
+    private byte[] serialize(List<Employee> roster) {
+        try {
+            return mapper.writeValueAsBytes(roster);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Exponential backoff, or the back-end's own Retry-After if that is longer.
+     */
+    private long backoffMs(int failures,
+                           Throwable e) {
+        long backoff = minBackoffMs << Math.min(failures - 1, 20);
+        Optional<Duration> retryAfter = Optional.empty();
+        if (e instanceof UpstreamThrottledException) {
+            retryAfter = ((UpstreamThrottledException) e).getRetryAfter();
+        } else if (e instanceof UpstreamOverloadedException) {
+            retryAfter = Optional.of(Duration.ofSeconds(((UpstreamOverloadedException) e).getRetryAfterSeconds()));
+        }
+        return Math.min(maxBackoffMs, Math.max(backoff, retryAfter.map(Duration::toMillis)
+                                                                  .orElse(0L)));
+    }
+
+    private void count(Schedule schedule,
+                       String outcome) {
+        meterRegistry.counter("employee.prefetch", "tenant", schedule.tenant, "outcome", outcome)
+                     .increment();
+    }
+
+    /**
+     * Refresh state of one tenant, only touched by its own sequential refresh loop.
+     */
+    static class Schedule {
+
+        private final String tenant;
+        private final String lease;
+        private final long intervalMs;
+        private volatile long nextDelayMs;
+        private volatile int failures;
+        /**
+         * Publication time of the roster this replica last fetched or loaded.
+         */
+        private volatile long adoptedAt;
+
+        private Schedule(String tenant,
+                         String lease,
+                         long intervalMs) {
+            this.tenant = tenant;
+            this.lease = lease;
+            this.intervalMs = intervalMs;
+            this.nextDelayMs = intervalMs;
+        }
+
+    }
+
+}
@@ -0,0 +1,284 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-stage timing of one sampled request, carried through the Reactor context like the {@link Deadline}.
+ * Pipelines mark their stages with {@link #stage(String)} and {@link #map(String, Function)}; for requests which are
+ * not sampled these cost one context lookup per subscription and record nothing.
+ * Stages are recorded as spans shaped after OpenTelemetry's (trace and span IDs, parent, start and end time), under a
+ * root span for the request, and a request with a W3C {@code traceparent} header keeps its trace ID.
+ *
+ * @see StageTraceWebFilter
+ */
+public final class StageTrace {
+
+    /**
+     * Reactor context key under which the request's StageTrace is stored.
+     */
+    public static final Class<StageTrace> CONTEXT_KEY = StageTrace.class;
+
+    /**
+     * Reactor context key for the response header time of one upstream attempt, set by {@link #responseTimer()}.
+     */
+    private static final String RESPONSE_AT_KEY = "employee.stage-trace.response-at";
+
+    private static final Pattern TRACEPARENT = Pattern.compile("[0-9a-f]{2}-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+
+    private final String name;
+    private final String traceId;
+    private final String parentSpanId;
+    private final String spanId = randomHex(16);
+    private final long startEpochNanos = System.currentTimeMillis() * 1_000_000;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+    private volatile long endNanos;
+
+    /**
+     * @param name        Name of the root span, e.g. the request method and path.
+     * @param traceparent W3C trace context header of the request, may be null.
+     */
+    StageTrace(String name,
+               String traceparent) {
+        this.name = name;
+        Matcher parent = traceparent == null ? null : TRACEPARENT.matcher(traceparent.trim());
+        if (parent != null && parent.matches()) {
+            this.traceId = parent.group(1);
+            this.parentSpanId = parent.group(2);
+        } else {
+            this.traceId = randomHex(32);
+            this.parentSpanId = null;
+        }
+    }
+
+    private static String randomHex(int digits) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder hex = new StringBuilder(digits);
+        while (hex.length() < digits) {
+            hex.append(String.format("%016x", random.nextLong()));
+        }
+        return hex.substring(0, digits);
+    }
+
+    /**
+     * @param context Reactor context of the current subscriber.
+     * @return Trace of the current request, Empty if it is not sampled.
+     */
+    public static Optional<StageTrace> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * Time a stage, from subscription until it completes, fails or is cancelled.
+     *
+     * @param stage Stage name.
+     * @param <T>   Type of the stage's value.
+     * @return Function for {@code Mono.transform}.
+     */
+    public static <T> Function<Mono<T>, Mono<T>> stage(String stage) {
+        return mono -> Mono.deferContextual(context -> {
+            Optional<StageTrace> trace = from(context);
+            if (trace.isEmpty()) {
+                return mono;
+            }
+            long start = System.nanoTime();
+            return mono.doFinally(signal -> trace.get()
+                                                 .record(stage, start, System.nanoTime()));
+        });
+    }
+
+    /**
+     * Time a synchronous mapping as a stage.
+     *
+     * @param stage  Stage name.
+     * @param mapper Mapping to apply.
+     * @return Function for {@code Mono.transform}.
+     */
+    public static <T, R> Function<Mono<T>, Mono<R>> map(String stage,
+                                                       Function<T, R> mapper) {
+        return mono -> Mono.deferContextual(context -> {
+            Optional<StageTrace> trace = from(context);
+            if (trace.isEmpty()) {
+                return mono.map(mapper);
+            }
+            return mono.map(value -> {
+                long start = System.nanoTime();
+                R result = mapper.apply(value);
+                trace.get()
+                     .record(stage, start, System.nanoTime());
+                return result;
+            });
+        });
+    }
+
+    /**
+     * Time one upstream attempt as two stages: "upstream" until the response headers arrive (connection, request
+     * and back-end time), then "decode" until the body has been read and decoded.
+     * The split point is taken by {@link #responseTimer()}, which must be a filter of the WebClient; without it the
+     * whole attempt counts as "upstream".
+     *
+     * @return Function for {@code Mono.transform}.
+     */
+    public static <T> Function<Mono<T>, Mono<T>> exchange() {
+        return request -> Mono.deferContextual(context -> {
+            Optional<StageTrace> trace = from(context);
+            if (trace.isEmpty()) {
+                return request;
+            }
+            long start = System.nanoTime();
+            long[] responseAt = new long[1];
+            return request.doFinally(signal -> trace.get()
+                                                    .recordExchange(start, responseAt[0], System.nanoTime()))
+                          .contextWrite(c -> c.put(RESPONSE_AT_KEY, responseAt));
+        });
+    }
+
+    /**
+     * WebClient filter marking when response headers arrive, for {@link #exchange()}.
+     */
+    public static ExchangeFilterFunction responseTimer() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            Optional<long[]> responseAt = context.getOrEmpty(RESPONSE_AT_KEY);
+            return responseAt.map(marker -> next.exchange(request)
+                                                .doOnNext(response -> marker[0] = System.nanoTime()))
+                             .orElseGet(() -> next.exchange(request));
+        });
+    }
+
+    private void recordExchange(long start,
+                                long responseAt,
+                                long end) {
+        if (responseAt == 0) {
+            record("upstream", start, end);
+        } else {
+            record("upstream", start, responseAt);
+            record("decode", responseAt, end);
+        }
+    }
+
+    void record(String stage,
+                long start,
+                long end) {
+        spans.add(new Span(stage, randomHex(16), start, end));
+    }
+
+    /**
+     * Close the root span.
+     */
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * @return Total time (in ms) of each stage, in order of first occurrence, with the request total last.
+     */
+    public Map<String, Double> stageMillis() {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        spans.forEach(span -> totals.merge(span.stage, span.durationNanos() / 1e6, Double::sum));
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        totals.put("total", (end - startNanos) / 1e6);
+        return totals;
+    }
+
+    /**
+     * @return Stage breakdown as a Server-Timing header value, e.g. {@code cache;dur=0.041, upstream;dur=38.2}.
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        stageMillis().forEach((stage, millis) -> {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(stage)
+                  .append(";dur=")
+                  .append(String.format(Locale.ROOT, "%.3f", millis));
+        });
+        return header.toString();
+    }
+
+    /**
+     * @return The root span and its stage spans, in the field layout of OpenTelemetry's OTLP/JSON spans.
+     */
+    public List<Map<String, Object>> toOtlpSpans() {
+        List<Map<String, Object>> exported = new ArrayList<>();
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        exported.add(otlpSpan(spanId, parentSpanId, name, startNanos, end));
+        spans.forEach(span -> exported.add(otlpSpan(span.spanId, spanId, span.stage, span.startNanos, span.endNanos)));
+        return exported;
+    }
+
+    private Map<String, Object> otlpSpan(String id,
+                                         String parentId,
+                                         String spanName,
+                                         long start,
+                                         long end) {
+        Map<String, Object> span = new LinkedHashMap<>();
+        span.put("traceId", traceId);
+        span.put("spanId", id);
+        if (parentId != null) {
+            span.put("parentSpanId", parentId);
+        }
+        span.put("name", spanName);
+        span.put("startTimeUnixNano", Long.toString(startEpochNanos + (start - startNanos)));
+        span.put("endTimeUnixNano", Long.toString(startEpochNanos + (end - startNanos)));
+        return span;
+    }
+
+    /**
+     * One timed stage of the request.
+     */
+    public static final class Span {
+
+        private final String stage;
+        private final String spanId;
+        private final long startNanos;
+        private final long endNanos;
+
+        private Span(String stage,
+                     String spanId,
+                     long startNanos,
+                     long endNanos) {
+            this.stage = stage;
+            this.spanId = spanId;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long durationNanos() {
+            return endNanos - startNanos;
+        }
+
+    }
+
+}
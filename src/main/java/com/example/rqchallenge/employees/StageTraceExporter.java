@@ -0,0 +1,69 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local exporter for finished {@link StageTrace}s.
+ * Each stage is recorded in the employee.stage timer, tagged by stage, and the most recent traces are kept in
+ * memory and served by the {@code /actuator/stagetraces} endpoint as OTLP/JSON-style spans, so no collector is
+ * needed to read a breakdown. The endpoint is not exposed over the web unless added to
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "stagetraces")
+public class StageTraceExporter {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentLinkedDeque<StageTrace> recent = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentCount = new AtomicInteger();
+
+    /**
+     * Number of finished traces kept for the endpoint.
+     */
+    @Value("${employee.trace.retained:100}")
+    private int retained;
+
+    @Autowired
+    public StageTraceExporter(@Autowired MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param trace Trace whose request has finished.
+     */
+    public void export(StageTrace trace) {
+        trace.getSpans()
+             .forEach(span -> Timer.builder("employee.stage")
+                                   .tag("stage", span.getStage())
+                                   .register(meterRegistry)
+                                   .record(span.durationNanos(), TimeUnit.NANOSECONDS));
+        recent.addFirst(trace);
+        if (recentCount.incrementAndGet() > retained && recent.pollLast() != null) {
+            recentCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return Spans of the retained traces, most recent first.
+     */
+    @ReadOperation
+    public List<Map<String, Object>> traces() {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        recent.forEach(trace -> spans.addAll(trace.toOtlpSpans()));
+        return spans;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts a {@link StageTrace} for a sample of requests, and for every request sending the {@value #DEBUG_HEADER}
+ * header, whose response then carries the stage breakdown in a {@value #SERVER_TIMING_HEADER} header.
+ * Finished traces go to the {@link StageTraceExporter}.
+ */
+@Component
+public class StageTraceWebFilter implements WebFilter {
+
+    static final String DEBUG_HEADER = "X-Debug-Stages";
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+    static final String TRACEPARENT_HEADER = "traceparent";
+
+    private final StageTraceExporter exporter;
+
+    /**
+     * Fraction of requests traced without asking; 0 traces only requests sending the debug header.
+     */
+    @Value("${employee.trace.sample-rate:0.01}")
+    private double sampleRate;
+
+    /**
+     * Whether clients may ask for a trace, and its breakdown, with the debug header; off by default, since the
+     * breakdown tells any client how the service spends its time.
+     */
+    @Value("${employee.trace.debug-header-enabled:false}")
+    private boolean debugHeaderEnabled;
+
+    @Autowired
+    public StageTraceWebFilter(@Autowired StageTraceExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange,
+                             WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        boolean debug = debugHeaderEnabled && request.getHeaders()
+                                                     .containsKey(DEBUG_HEADER);
+        if (!debug && (sampleRate <= 0 || ThreadLocalRandom.current()
+                                                           .nextDouble() >= sampleRate)) {
+            return chain.filter(exchange);
+        }
+        StageTrace trace = new StageTrace(request.getMethodValue() + " " + request.getPath()
+                                                                                  .value(),
+                                          request.getHeaders()
+                                                 .getFirst(TRACEPARENT_HEADER));
+        if (debug) {
+            exchange.getResponse()
+                    .beforeCommit(() -> Mono.fromRunnable(() -> {
+                        HttpHeaders headers = exchange.getResponse()
+                                                      .getHeaders();
+                        headers.add(SERVER_TIMING_HEADER, trace.serverTiming());
+                        headers.add(DEBUG_HEADER, trace.getTraceId());
+                    }));
+        }
+        return chain.filter(exchange)
+                    .contextWrite(context -> context.put(StageTrace.CONTEXT_KEY, trace))
+                    .doFinally(signal -> {
+                        trace.finish();
+                        exporter.export(trace);
+                    });
+    }
+
+}
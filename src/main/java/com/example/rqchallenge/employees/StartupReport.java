@@ -0,0 +1,87 @@
+package com.example.rqchallenge.employees;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * Logs how long the application took to become ready and its resident set size at that point, in a single line
+ * which the measureStartup Gradle task collects for each startup mode (default, fast-start, fast-start with the
+ * class-data sharing archive).
+ * With {@code employee.startup.exit-after-ready} the application exits straight after reporting, which is also how
+ * the class-data sharing archive is recorded.
+ */
+@Component
+public class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+    /**
+     * Whether to exit once the application is ready, for startup measurements and archive training runs.
+     */
+    @Value("${employee.startup.exit-after-ready:false}")
+    private boolean exitAfterReady;
+
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        Environment environment = event.getApplicationContext()
+                                       .getEnvironment();
+        String profiles = environment.getActiveProfiles().length == 0
+                ? "default"
+                : String.join(",", environment.getActiveProfiles());
+        boolean sharedArchive = ManagementFactory.getRuntimeMXBean()
+                                                 .getInputArguments()
+                                                 .stream()
+                                                 .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"));
+        OptionalLong rssKb = residentSetKb();
+        log.info("Startup report: profiles={} cds={} ready-ms={} rss-mb={} heap-used-mb={}",
+                 profiles,
+                 sharedArchive,
+                 ManagementFactory.getRuntimeMXBean()
+                                  .getUptime(),
+                 rssKb.isPresent() ? rssKb.getAsLong() / 1024 : "n/a",
+                 (Runtime.getRuntime()
+                         .totalMemory() - Runtime.getRuntime()
+                                                 .freeMemory()) / (1024 * 1024));
+        if (exitAfterReady) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    /**
+     * Resident set size from procfs; not available outside Linux.
+     */
+    private static OptionalLong residentSetKb() {
+        if (!Files.isReadable(PROC_STATUS)) {
+            return OptionalLong.empty();
+        }
+        try (Stream<String> lines = Files.lines(PROC_STATUS)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                        .map(line -> Arrays.stream(line.split("\\s+"))
+                                           .skip(1)
+                                           .findFirst()
+                                           .orElse("0"))
+                        .mapToLong(Long::parseLong)
+                        .findFirst();
+        } catch (IOException e) {
+            log.debug("Could not read resident set size", e);
+            return OptionalLong.empty();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalizing pool of strings, so values decoded again on every roster refresh (names, image paths) share one
+ * instance with the copy already cached, and the fresh copy dies young instead of being promoted with the new cache
+ * generation.
+ * Entries are weak: a value stays pooled only while something else, such as a cached employee, still references it,
+ * so the pool needs no sizing or expiry and never holds on to departed employees' values.
+ * The pool is striped into independently locked shards to keep decode threads from contending.
+ */
+public final class StringPool {
+
+    private final Map<String, WeakReference<String>>[] shards;
+    private final int mask;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * @param shardCount Number of independently locked shards, rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    StringPool(int shardCount) {
+        int count = 1;
+        while (count < shardCount) {
+            count <<= 1;
+        }
+        this.shards = new Map[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new WeakHashMap<>();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Estimated heap footprint of a String and its value array, assuming compressed oops and compact strings: one
+     * byte per character if every character is Latin-1, otherwise two.
+     */
+    static long footprint(String value) {
+        long bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + ((16 + bytesPerChar * value.length() + 7) & ~7);
+    }
+
+    /**
+     * @param value String to canonicalize, may be null.
+     * @return The pooled instance equal to the value, or the value itself once pooled.
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups.increment();
+        int hash = value.hashCode();
+        Map<String, WeakReference<String>> shard = shards[(hash ^ (hash >>> 16)) & mask];
+        synchronized (shard) {
+            WeakReference<String> ref = shard.get(value);
+            String pooled = ref == null ? null : ref.get();
+            if (pooled != null) {
+                hits.increment();
+                if (pooled != value) {
+                    bytesSaved.add(footprint(value));
+                }
+                return pooled;
+            }
+            shard.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return Number of values currently pooled, including any cleared but not yet expunged.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Fraction of lookups answered with an already pooled instance, 0 before any lookup.
+     */
+    public double getHitRate() {
+        long total = lookups.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * @return Estimated bytes of duplicate strings which were replaced by a pooled instance, and so not retained.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Publish the pool's statistics as {@code employee.string-pool.*} meters.
+     *
+     * @param registry Registry to publish to.
+     * @param name     Name of the pool, for the "pool" tag.
+     */
+    public void bindTo(MeterRegistry registry,
+                       String name) {
+        FunctionCounter.builder("employee.string-pool.lookups", this, StringPool::getLookups)
+                       .tag("pool", name)
+                       .register(registry);
+        FunctionCounter.builder("employee.string-pool.hits", this, StringPool::getHits)
+                       .tag("pool", name)
+                       .register(registry);
+        FunctionCounter.builder("employee.string-pool.bytes-saved", this, StringPool::getBytesSaved)
+                       .tag("pool", name)
+                       .baseUnit("bytes")
+                       .register(registry);
+        Gauge.builder("employee.string-pool.hit-rate", this, StringPool::getHitRate)
+             .tag("pool", name)
+             .register(registry);
+        Gauge.builder("employee.string-pool.size", this, StringPool::size)
+             .tag("pool", name)
+             .register(registry);
+    }
+
+}
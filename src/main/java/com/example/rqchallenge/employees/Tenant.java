@@ -0,0 +1,75 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * One back-end API together with everything that must not be shared with other back-ends: its client, rate
+ * limiter, scheduler, retry budget and cache partitions.
+ *
+ * @see TenantRegistry
+ */
+public class Tenant {
+
+    private final String name;
+    private final String baseUri;
+    private final WebClient client;
+    private final RateLimiter rateLimiter;
+    private final UpstreamScheduler scheduler;
+    private final RetryBudget retryBudget;
+    private final FluxCache<Integer, Employee> cache;
+    private final NegativeCache negativeCache;
+
+    public Tenant(String name,
+                  String baseUri,
+                  WebClient client,
+                  RateLimiter rateLimiter,
+                  UpstreamScheduler scheduler,
+                  RetryBudget retryBudget,
+                  FluxCache<Integer, Employee> cache,
+                  NegativeCache negativeCache) {
+        this.name = name;
+        this.baseUri = baseUri;
+        this.client = client;
+        this.rateLimiter = rateLimiter;
+        this.scheduler = scheduler;
+        this.retryBudget = retryBudget;
+        this.cache = cache;
+        this.negativeCache = negativeCache;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Base URI of the tenant's back-end API.
+     */
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    public WebClient getClient() {
+        return client;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public UpstreamScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    public FluxCache<Integer, Employee> getCache() {
+        return cache;
+    }
+
+    public NegativeCache getNegativeCache() {
+        return negativeCache;
+    }
+
+}
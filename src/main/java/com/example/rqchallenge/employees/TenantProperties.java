@@ -0,0 +1,114 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Additional back-ends, one per tenant, configured as {@code employee.tenants.<name>.base-uri=...} etc.
+ * The default tenant is always present and keeps using the top-level {@code employee.*} settings.
+ */
+@ConfigurationProperties(prefix = "employee")
+public class TenantProperties {
+
+    private Map<String, TenantConfig> tenants = new LinkedHashMap<>();
+
+    public Map<String, TenantConfig> getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(Map<String, TenantConfig> tenants) {
+        this.tenants = tenants;
+    }
+
+    public static class TenantConfig {
+
+        private String baseUri;
+        private String imageBaseUri;
+        private long throttleTimeMs = 7200000;
+        private int maxCacheEntries;
+        private double permitsPerSecond = 5;
+        private int burst = 5;
+        private int maxConcurrency = 8;
+
+        /**
+         * Base URI of the tenant's back-end API.
+         */
+        public String getBaseUri() {
+            return baseUri;
+        }
+
+        public void setBaseUri(String baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        /**
+         * Base URI against which the tenant's profile image paths are resolved; defaults to its base URI.
+         */
+        public String getImageBaseUri() {
+            return imageBaseUri;
+        }
+
+        public void setImageBaseUri(String imageBaseUri) {
+            this.imageBaseUri = imageBaseUri;
+        }
+
+        /**
+         * Minimum amount of time (in milliseconds) between roster refreshes of the tenant's cache.
+         */
+        public long getThrottleTimeMs() {
+            return throttleTimeMs;
+        }
+
+        public void setThrottleTimeMs(long throttleTimeMs) {
+            this.throttleTimeMs = throttleTimeMs;
+        }
+
+        /**
+         * Memory budget of the tenant's cache partition, in employees; 0 for unbounded.
+         */
+        public int getMaxCacheEntries() {
+            return maxCacheEntries;
+        }
+
+        public void setMaxCacheEntries(int maxCacheEntries) {
+            this.maxCacheEntries = maxCacheEntries;
+        }
+
+        /**
+         * Sustained rate of calls to the tenant's back-end.
+         */
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        /**
+         * Calls to the tenant's back-end allowed at once after an idle period.
+         */
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        /**
+         * Calls to the tenant's back-end in flight at once; lane weights and queue sizes are shared by all tenants.
+         */
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.context.ContextView;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the {@link Tenant} of each configured back-end and resolves the tenant of the current request.
+ * The default tenant is built from the application's WebClient, cache and rate limiter beans; further tenants come
+ * from {@link TenantProperties}. Every tenant gets its own {@link RetryBudget} from the {@link RetryPolicy}.
+ */
+@Component
+public class TenantRegistry {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    /**
+     * Reactor context key under which the requested tenant name is stored.
+     */
+    static final String CONTEXT_KEY = "employee.tenant";
+
+    private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public TenantRegistry(@Value("${employee.base-uri}") String baseUri,
+                          @Autowired WebClient webClient,
+                          @Autowired RateLimiter upstreamRateLimiter,
+                          @Autowired UpstreamScheduler upstreamScheduler,
+                          @Autowired RetryPolicy retryPolicy,
+                          @Autowired FluxCache<Integer, Employee> cache,
+                          @Autowired NegativeCache negativeCache,
+                          @Autowired TenantProperties properties,
+                          @Autowired WebClient.Builder webClientBuilder,
+                          @Autowired UpstreamRecorder upstreamRecorder,
+                          @Autowired MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        register(new Tenant(DEFAULT_TENANT,
+                            baseUri,
+                            webClient,
+                            upstreamRateLimiter,
+                            upstreamScheduler,
+                            retryPolicy.newBudget(),
+                            cache,
+                            negativeCache));
+        properties.getTenants()
+                  .forEach((name, config) -> {
+                      if (tenants.containsKey(name)) {
+                          throw new IllegalStateException("Tenant name is reserved: " + name);
+                      }
+                      WebClient client = upstreamRecorder.apply(name,
+                                                                webClientBuilder.clone()
+                                                                                .baseUrl(config.getBaseUri())
+                                                                                .defaultHeader(HttpHeaders.CONTENT_TYPE,
+                                                                                               MimeTypeUtils.APPLICATION_JSON.toString())
+                                                                                .filter(StageTrace.responseTimer()))
+                                                         .build();
+                      register(new Tenant(name,
+                                          config.getBaseUri(),
+                                          client,
+                                          new RateLimiter(config.getPermitsPerSecond(), config.getBurst()),
+                                          upstreamScheduler.withMaxConcurrency(config.getMaxConcurrency()),
+                                          retryPolicy.newBudget(),
+                                          new FluxCache<>(config.getThrottleTimeMs(),
+                                                          config.getMaxCacheEntries(),
+                                                          cache.getShardCount()),
+                                          negativeCache.emptyCopy()));
+                  });
+    }
+
+    private void register(Tenant tenant) {
+        tenants.put(tenant.getName(), tenant);
+        tenant.getScheduler()
+              .bindTo(meterRegistry, tenant.getName());
+        tenant.getRetryBudget()
+              .bindTo(meterRegistry, tenant.getName());
+        Gauge.builder("employee.cache.size", tenant.getCache(), FluxCache::size)
+             .tag("tenant", tenant.getName())
+             .register(meterRegistry);
+        Gauge.builder("employee.cache.pending", tenant.getCache(), FluxCache::pendingCount)
+             .tag("tenant", tenant.getName())
+             .register(meterRegistry);
+        FunctionCounter.builder("employee.cache.shard-swaps", tenant.getCache(), FluxCache::getShardSwaps)
+                       .tag("tenant", tenant.getName())
+                       .register(meterRegistry);
+        FunctionCounter.builder("employee.negative-cache.hits", tenant.getNegativeCache(), NegativeCache::getRecentHits)
+                       .tag("tenant", tenant.getName())
+                       .tag("source", "recent")
+                       .register(meterRegistry);
+        FunctionCounter.builder("employee.negative-cache.hits", tenant.getNegativeCache(), NegativeCache::getRosterHits)
+                       .tag("tenant", tenant.getName())
+                       .tag("source", "roster")
+                       .register(meterRegistry);
+        Gauge.builder("employee.negative-cache.size", tenant.getNegativeCache(), NegativeCache::size)
+             .tag("tenant", tenant.getName())
+             .register(meterRegistry);
+    }
+
+    /**
+     * @param context Reactor context of the current subscriber.
+     * @return Tenant named in the context, or the default tenant if none was named.
+     * @throws UnknownTenantException If the named tenant is not configured.
+     */
+    public Tenant resolve(ContextView context) {
+        return get(tenantName(context));
+    }
+
+    /**
+     * @param context Reactor context of the current subscriber.
+     * @return Tenant name requested in the context, or the default tenant name.
+     */
+    public static String tenantName(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, DEFAULT_TENANT);
+    }
+
+    public Tenant get(String name) {
+        Tenant tenant = tenants.get(name);
+        if (tenant == null) {
+            throw new UnknownTenantException(name);
+        }
+        return tenant;
+    }
+
+    public Collection<Tenant> all() {
+        return Collections.unmodifiableCollection(tenants.values());
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes each request to the tenant named in the {@value #TENANT_HEADER} header; requests without it go to the
+ * default tenant.
+ * Only the name is recorded here; it is resolved against the {@link TenantRegistry} by the service, so that an
+ * unknown tenant is reported through the normal exception handling.
+ */
+@Component
+public class TenantWebFilter implements WebFilter {
+
+    static final String TENANT_HEADER = "X-Tenant-Id";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange,
+                             WebFilterChain chain) {
+        String tenant = exchange.getRequest()
+                                .getHeaders()
+                                .getFirst(TENANT_HEADER);
+        if (tenant == null || tenant.isBlank()) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                    .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, tenant.trim()));
+    }
+
+}
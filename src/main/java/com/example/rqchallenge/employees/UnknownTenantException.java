@@ -0,0 +1,14 @@
+package com.example.rqchallenge.employees;
+
+import static java.lang.String.format;
+
+/**
+ * A request named a tenant which is not configured.
+ */
+public class UnknownTenantException extends RuntimeException {
+
+    public UnknownTenantException(String tenant) {
+        super(format("Tenant %s is not configured.", tenant));
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.example.rqchallenge.employees;
+
+/**
+ * An export was requested in a format other than those supported.
+ */
+public class UnsupportedExportFormatException extends RuntimeException {
+
+    public UnsupportedExportFormatException(String format) {
+        super("Unsupported export format '" + format + "', expected 'csv' or 'ndjson'.");
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.example.rqchallenge.employees;
+
+import static java.lang.String.format;
+
+/**
+ * An upstream call was shed because its {@link UpstreamScheduler} lane was full.
+ * Deliberately not a ServiceException: retrying would only add to the overload.
+ */
+public class UpstreamOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public UpstreamOverloadedException(UpstreamScheduler.Lane lane,
+                                       long retryAfterSeconds) {
+        super(format("Too many %s requests are waiting for the back-end.  Please try again in %d second(s).",
+                     lane.name()
+                         .toLowerCase(),
+                     retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
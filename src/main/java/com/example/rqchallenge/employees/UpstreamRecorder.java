@@ -0,0 +1,375 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the upstream exchanges made through the employee WebClients, or replays a recording in their place, so
+ * performance investigations and regression tests can run against the same data and throttling every time, offline.
+ * <ul>
+ *     <li>{@value #OFF}: requests go to the back-end API as usual.</li>
+ *     <li>{@value #RECORD}: requests go to the back-end API, and each request, response status, headers, body,
+ *     offset from startup and latency is appended to a gzip-compressed log of JSON lines. The body is kept as text,
+ *     so the headers are adjusted to describe it as sent again in UTF-8, without content coding.</li>
+ *     <li>{@value #REPLAY}: no requests leave the process; each is answered from the log with the next recorded
+ *     exchange for the same tenant, method and URI (cycling once they run out). The answer comes after the recorded
+ *     latency, and no earlier than the recorded response did, counting from startup; both times are multiplied by
+ *     the time scale. Requests made faster than in the recording thereby get their responses at the recorded pace.
+ *     A request with no recorded exchange fails.</li>
+ * </ul>
+ * Profile image downloads are not recorded.
+ */
+public class UpstreamRecorder {
+
+    static final String OFF = "off";
+    static final String RECORD = "record";
+    static final String REPLAY = "replay";
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamRecorder.class);
+    private final String mode;
+    private final double timeScale;
+    private final ObjectMapper mapper;
+    private final ExchangeStrategies strategies;
+    private final Scheduler blockingScheduler;
+    private final long startNanos = System.nanoTime();
+    private final Queue<RecordedExchange> unwritten = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainWip = new AtomicInteger();
+    private final Map<String, Replay> replays;
+    private BufferedWriter writer;
+
+    /**
+     * @param mode              One of {@value #OFF}, {@value #RECORD} or {@value #REPLAY}.
+     * @param path              Log to write when recording, or read when replaying.
+     * @param timeScale         Multiplier for recorded offsets and latencies when replaying; 0 answers immediately.
+     * @param mapper            Mapper for log records.
+     * @param strategies        Codecs for replayed responses.
+     * @param blockingScheduler Scheduler for writing the log.
+     */
+    public UpstreamRecorder(String mode,
+                            Path path,
+                            double timeScale,
+                            ObjectMapper mapper,
+                            ExchangeStrategies strategies,
+                            Scheduler blockingScheduler) {
+        this.mode = mode.toLowerCase(Locale.ROOT);
+        this.timeScale = timeScale;
+        this.mapper = mapper;
+        this.strategies = strategies;
+        this.blockingScheduler = blockingScheduler;
+        switch (this.mode) {
+            case OFF:
+                this.replays = Collections.emptyMap();
+                break;
+            case RECORD:
+                this.replays = Collections.emptyMap();
+                this.writer = openLog(path);
+                log.info("Recording upstream exchanges to {}", path);
+                break;
+            case REPLAY:
+                this.replays = load(path);
+                log.info("Replaying {} upstream exchanges from {} at time scale {}",
+                         replays.values()
+                                .stream()
+                                .mapToInt(replay -> replay.exchanges.size())
+                                .sum(),
+                         path,
+                         timeScale);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown upstream recording mode: " + mode);
+        }
+    }
+
+    private static BufferedWriter openLog(Path path) {
+        try {
+            // sync flush after each record, so the log is readable up to the last exchange if the process dies
+            GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(path,
+                                                                              StandardOpenOption.CREATE,
+                                                                              StandardOpenOption.TRUNCATE_EXISTING,
+                                                                              StandardOpenOption.WRITE),
+                                                        true);
+            return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Replay> load(Path path) {
+        Map<String, Replay> loaded = new HashMap<>();
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(path));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                RecordedExchange exchange = mapper.readValue(line, RecordedExchange.class);
+                loaded.computeIfAbsent(key(exchange.getTenant(), exchange.getMethod(), exchange.getUri()),
+                                       k -> new Replay())
+                      .exchanges
+                      .add(exchange);
+            }
+        } catch (EOFException e) {
+            // a recording cut short by a crash ends mid-stream; everything before the last flush is intact
+            log.warn("Upstream recording {} is truncated, replaying the complete records", path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return loaded;
+    }
+
+    private static String key(String tenant,
+                              String method,
+                              String uri) {
+        return tenant + ' ' + method + ' ' + uri;
+    }
+
+    private static String uri(URI url) {
+        return url.getRawQuery() == null ? url.getRawPath() : url.getRawPath() + '?' + url.getRawQuery();
+    }
+
+    /**
+     * Route a tenant's WebClient through the recorder, according to the mode.
+     *
+     * @param tenant  Tenant the client calls the back-end for.
+     * @param builder Builder for the client, already carrying its base URI.
+     * @return The same builder.
+     */
+    public WebClient.Builder apply(String tenant,
+                                   WebClient.Builder builder) {
+        switch (mode) {
+            case RECORD:
+                return builder.filter(recording(tenant));
+            case REPLAY:
+                return builder.exchangeFunction(replaying(tenant));
+            default:
+                return builder;
+        }
+    }
+
+    private ExchangeFilterFunction recording(String tenant) {
+        return (request, next) -> {
+            StringBuilder requestBody = new StringBuilder();
+            long start = System.nanoTime();
+            return next.exchange(capturing(request, requestBody))
+                       .flatMap(response -> response.bodyToMono(String.class)
+                                                    .defaultIfEmpty("")
+                                                    .map(body -> {
+                                                        record(tenant, request, requestBody, response, body, start);
+                                                        return response.mutate()
+                                                                       .headers(headers -> describeText(headers, body))
+                                                                       .body(body)
+                                                                       .build();
+                                                    }));
+        };
+    }
+
+    /**
+     * Copy of the request which keeps a copy of its body as it is written.
+     */
+    private static ClientRequest capturing(ClientRequest request,
+                                           StringBuilder captured) {
+        return ClientRequest.from(request)
+                            .body((outputMessage, context) -> request.body()
+                                                                     .insert(new CapturingRequest(outputMessage,
+                                                                                                  captured),
+                                                                             context))
+                            .build();
+    }
+
+    private void record(String tenant,
+                        ClientRequest request,
+                        StringBuilder requestBody,
+                        ClientResponse response,
+                        String body,
+                        long start) {
+        RecordedExchange exchange = new RecordedExchange();
+        exchange.setTenant(tenant);
+        exchange.setMethod(request.method()
+                                  .name());
+        exchange.setUri(uri(request.url()));
+        exchange.setRequestBody(requestBody.length() == 0 ? null : requestBody.toString());
+        exchange.setStatus(response.rawStatusCode());
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.headers()
+                               .asHttpHeaders());
+        describeText(headers, body);
+        exchange.setHeaders(new LinkedHashMap<>(headers));
+        exchange.setBody(body);
+        exchange.setOffsetMs(TimeUnit.NANOSECONDS.toMillis(start - startNanos));
+        exchange.setLatencyMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        unwritten.add(exchange);
+        if (drainWip.getAndIncrement() == 0) {
+            blockingScheduler.schedule(this::drain);
+        }
+    }
+
+    /**
+     * Adjust response headers to a body which has been decoded to text and is sent on as UTF-8: the original content
+     * coding and framing no longer apply, and the length is that of the re-encoded body.
+     */
+    private static void describeText(HttpHeaders headers,
+                                     String body) {
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.setContentLength(body.getBytes(StandardCharsets.UTF_8).length);
+        try {
+            MediaType contentType = headers.getContentType();
+            if (contentType != null && contentType.getCharset() != null
+                    && !StandardCharsets.UTF_8.equals(contentType.getCharset())) {
+                headers.setContentType(new MediaType(contentType, StandardCharsets.UTF_8));
+            }
+        } catch (InvalidMediaTypeException e) {
+            // passed on as received
+        }
+    }
+
+    /**
+     * Append queued exchanges to the log in completion order; runs on the blocking scheduler, one drain at a time.
+     */
+    private void drain() {
+        int missed = 1;
+        do {
+            writeUnwritten();
+            missed = drainWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized void writeUnwritten() {
+        if (writer == null) {
+            unwritten.clear();
+            return;
+        }
+        try {
+            RecordedExchange exchange;
+            while ((exchange = unwritten.poll()) != null) {
+                writer.write(mapper.writeValueAsString(exchange));
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Could not write upstream recording", e);
+        }
+    }
+
+    private ExchangeFunction replaying(String tenant) {
+        return request -> {
+            String uri = uri(request.url());
+            Replay replay = replays.get(key(tenant, request.method()
+                                                           .name(), uri));
+            if (replay == null) {
+                return Mono.error(new IllegalStateException("No recorded upstream exchange for tenant " + tenant
+                                                                    + ": " + request.method() + " " + uri));
+            }
+            RecordedExchange exchange = replay.next();
+            // by raw code, as recorded: a status outside the HttpStatus enum is still a response to replay
+            ClientResponse response = ClientResponse.create(exchange.getStatus(), strategies)
+                                                    .headers(headers -> {
+                                                        exchange.getHeaders()
+                                                                .forEach(headers::addAll);
+                                                        // recordings made before the headers were adjusted on recording
+                                                        describeText(headers, exchange.getBody());
+                                                    })
+                                                    .body(exchange.getBody())
+                                                    .build();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            long delayMs = Math.max(Math.round(exchange.getLatencyMs() * timeScale),
+                                    Math.round((exchange.getOffsetMs() + exchange.getLatencyMs()) * timeScale) - elapsedMs);
+            return delayMs > 0 ? Mono.delay(Duration.ofMillis(delayMs))
+                                     .thenReturn(response) : Mono.just(response);
+        };
+    }
+
+    /**
+     * Write out any exchanges still queued and close the log.
+     */
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writeUnwritten();
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Request which appends the body it writes to a buffer, as UTF-8 text.
+     */
+    private static class CapturingRequest extends ClientHttpRequestDecorator {
+
+        private final StringBuilder captured;
+
+        CapturingRequest(ClientHttpRequest delegate,
+                         StringBuilder captured) {
+            super(delegate);
+            this.captured = captured;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body)
+                                       .doOnNext(buffer -> captured.append(buffer.toString(buffer.readPosition(),
+                                                                                           buffer.readableByteCount(),
+                                                                                           StandardCharsets.UTF_8))));
+        }
+
+    }
+
+    /**
+     * Recorded exchanges for one tenant, method and URI, served in recorded order.
+     */
+    private static class Replay {
+
+        private final List<RecordedExchange> exchanges = new ArrayList<>();
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        RecordedExchange next() {
+            return exchanges.get(Math.floorMod(cursor.getAndIncrement(), exchanges.size()));
+        }
+
+    }
+
+}
@@ -0,0 +1,342 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of one back-end: at most {@code maxConcurrency} upstream calls run at once, and waiting
+ * calls are admitted from per-{@link Lane} queues by smooth weighted round-robin, so a burst of bulk refreshes cannot
+ * starve interactive lookups, while bulk and background work still progress.
+ * Each lane queue is bounded; a call which finds its lane full is shed with {@link UpstreamOverloadedException}.
+ * A call cancelled while queued frees its place at once, and is skipped by admission without using a turn of its lane.
+ * <p>
+ * Admission runs in a drain loop which only one thread executes at a time, so the scheduler never parks a caller.
+ */
+public class UpstreamScheduler {
+
+    /**
+     * Reactor context key to override the lane of the upstream calls made on behalf of a subscriber.
+     */
+    public static final String LANE_CONTEXT_KEY = "employee.upstream.lane";
+
+    public enum Lane {
+        /**
+         * A client is waiting on this call, e.g. a lookup by ID which missed the cache.
+         */
+        INTERACTIVE,
+        /**
+         * Large reads, e.g. a full roster refresh.
+         */
+        BULK,
+        /**
+         * Work no client is waiting on, e.g. asynchronous creates.
+         */
+        BACKGROUND
+    }
+
+    private final int maxConcurrency;
+    private final Map<Lane, Integer> weights;
+    private final Map<Lane, Integer> capacities;
+    private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger wip = new AtomicInteger();
+    /**
+     * Moving average of the time a call holds its slot, used to estimate when a shed caller may retry.
+     */
+    private final AtomicLong averageServiceNanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(100));
+
+    /**
+     * @param maxConcurrency Maximum number of calls admitted at once.
+     * @param weights        Relative share of admissions for each lane while several lanes are waiting.
+     * @param capacities     Maximum number of calls waiting in each lane.
+     */
+    public UpstreamScheduler(int maxConcurrency,
+                             Map<Lane, Integer> weights,
+                             Map<Lane, Integer> capacities) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.weights = weights;
+        this.capacities = capacities;
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneQueue(Math.max(1, weights.getOrDefault(lane, 1)),
+                                          Math.max(0, capacities.getOrDefault(lane, 0))));
+        }
+    }
+
+    /**
+     * @return A new, idle scheduler with the same lane settings, e.g. for another tenant.
+     */
+    public UpstreamScheduler withMaxConcurrency(int maxConcurrency) {
+        return new UpstreamScheduler(maxConcurrency, weights, capacities);
+    }
+
+    /**
+     * @param context     Reactor context of the current subscriber.
+     * @param defaultLane Lane of the call unless the context overrides it.
+     * @return Lane to schedule the call in.
+     */
+    public static Lane lane(ContextView context,
+                            Lane defaultLane) {
+        return context.getOrDefault(LANE_CONTEXT_KEY, defaultLane);
+    }
+
+    /**
+     * Register queueing time, queue depth and shedding meters for each lane.
+     */
+    public void bindTo(MeterRegistry registry,
+                       String tenant) {
+        lanes.forEach((lane, queue) -> {
+            String name = lane.name()
+                              .toLowerCase();
+            queue.queueTime = Timer.builder("employee.scheduler.queue-time")
+                                   .tag("tenant", tenant)
+                                   .tag("lane", name)
+                                   .publishPercentiles(0.5, 0.99)
+                                   .register(registry);
+            queue.rejected = Counter.builder("employee.scheduler.rejected")
+                                    .tag("tenant", tenant)
+                                    .tag("lane", name)
+                                    .register(registry);
+            Gauge.builder("employee.scheduler.queued", queue.size, AtomicInteger::get)
+                 .tag("tenant", tenant)
+                 .tag("lane", name)
+                 .register(registry);
+        });
+        Gauge.builder("employee.scheduler.active", active, AtomicInteger::get)
+             .tag("tenant", tenant)
+             .register(registry);
+    }
+
+    /**
+     * Run a call once the scheduler admits it. Cancelling while queued gives up the place in the queue.
+     *
+     * @param lane Lane to queue the call in.
+     * @param call Upstream call, subscribed to on admission.
+     * @param <T>  Type of the upstream response.
+     * @return Upstream response, or UpstreamOverloadedException if the lane is full.
+     */
+    public <T> Mono<T> schedule(Lane lane,
+                                Mono<T> call) {
+        return Mono.usingWhen(admission(lane),
+                              ticket -> call,
+                              this::release,
+                              (ticket, e) -> release(ticket),
+                              this::release);
+    }
+
+    private Mono<Ticket> admission(Lane lane) {
+        return Mono.create(sink -> {
+            LaneQueue queue = lanes.get(lane);
+            if (queue.size.incrementAndGet() > queue.capacity) {
+                queue.size.decrementAndGet();
+                if (queue.rejected != null) {
+                    queue.rejected.increment();
+                }
+                sink.error(new UpstreamOverloadedException(lane, retryAfterSeconds()));
+                return;
+            }
+            Ticket ticket = new Ticket(sink);
+            sink.onCancel(() -> {
+                if (ticket.abandon()) {
+                    queue.size.decrementAndGet();
+                    // admission skips the ticket should it be at the head meanwhile; removing it keeps abandoned
+                    // tickets from piling up while every slot is busy
+                    queue.waiting.remove(ticket);
+                } else {
+                    // admitted concurrently with the cancel, so the subscriber may never see the ticket
+                    release(ticket).subscribe();
+                }
+            });
+            queue.waiting.offer(ticket);
+            drain();
+        });
+    }
+
+    private Mono<Void> release(Ticket ticket) {
+        return Mono.fromRunnable(() -> {
+            if (ticket.release()) {
+                long held = System.nanoTime() - ticket.admittedAt;
+                averageServiceNanos.getAndUpdate(average -> average + (held - average) / 8);
+                active.decrementAndGet();
+                drain();
+            }
+        });
+    }
+
+    /**
+     * Admit waiting calls while there are free slots. Only one thread runs the loop at a time; any other caller just
+     * signals that there is more work, which the running thread picks up before it exits.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (active.get() < maxConcurrency) {
+                // the slot is taken before admission, since the admitted call may run and release it synchronously
+                active.incrementAndGet();
+                if (!admitNext()) {
+                    active.decrementAndGet();
+                    break;
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Admit the next waiting call by smooth weighted round-robin over the lanes with waiting calls: each such lane
+     * earns its weight, the richest lane is served and pays back the total, which interleaves lanes in proportion to
+     * their weights. Abandoned tickets are dropped first, and one abandoned concurrently with its admission is dropped
+     * without settling the round, so cancelled calls neither use a turn nor count in the queueing time.
+     *
+     * @return False if no call is waiting.
+     */
+    private boolean admitNext() {
+        List<LaneQueue> eligible = new ArrayList<>(lanes.size());
+        while (true) {
+            eligible.clear();
+            LaneQueue best = null;
+            int total = 0;
+            for (LaneQueue queue : lanes.values()) {
+                if (!queue.dropAbandoned()) {
+                    continue;
+                }
+                eligible.add(queue);
+                total += queue.weight;
+                if (best == null || queue.current + queue.weight > best.current + best.weight) {
+                    best = queue;
+                }
+            }
+            if (best == null) {
+                return false;
+            }
+            Ticket ticket = best.waiting.poll();
+            if (ticket == null || !ticket.admit()) {
+                // cancelled (and possibly removed) since it was found at the head of its queue, which already gave
+                // up its place
+                continue;
+            }
+            for (LaneQueue queue : eligible) {
+                queue.current += queue.weight;
+            }
+            best.current -= total;
+            best.size.decrementAndGet();
+            if (best.queueTime != null) {
+                best.queueTime.record(ticket.admittedAt - ticket.queuedAt, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        }
+    }
+
+    private long retryAfterSeconds() {
+        int queued = lanes.values()
+                          .stream()
+                          .mapToInt(queue -> queue.size.get())
+                          .sum();
+        long waitNanos = (queued + 1L) * averageServiceNanos.get() / maxConcurrency;
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+    }
+
+    private static class LaneQueue {
+
+        private final Queue<Ticket> waiting = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final int weight;
+        private final int capacity;
+        /**
+         * Round-robin credit, only touched inside the drain loop.
+         */
+        private int current;
+        private Timer queueTime;
+        private Counter rejected;
+
+        private LaneQueue(int weight,
+                          int capacity) {
+            this.weight = weight;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Drop abandoned tickets from the head of the queue; only called inside the drain loop.
+         *
+         * @return True if a ticket which has not been abandoned heads the queue.
+         */
+        private boolean dropAbandoned() {
+            Ticket head;
+            while ((head = waiting.peek()) != null && head.isAbandoned()) {
+                waiting.poll();
+            }
+            return head != null;
+        }
+
+    }
+
+    private static class Ticket {
+
+        private static final int WAITING = 0;
+        private static final int ADMITTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final MonoSink<Ticket> sink;
+        private final long queuedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long admittedAt;
+
+        private Ticket(MonoSink<Ticket> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * @return False if the caller already gave up.
+         */
+        private boolean admit() {
+            admittedAt = System.nanoTime();
+            if (!state.compareAndSet(WAITING, ADMITTED)) {
+                return false;
+            }
+            sink.success(this);
+            return true;
+        }
+
+        /**
+         * @return False if the ticket was admitted first and so holds a slot.
+         */
+        private boolean abandon() {
+            return state.compareAndSet(WAITING, ABANDONED);
+        }
+
+        private boolean isAbandoned() {
+            return state.get() == ABANDONED;
+        }
+
+        /**
+         * @return True the first time an admitted ticket is released.
+         */
+        private boolean release() {
+            return state.get() == ADMITTED && released.compareAndSet(false, true);
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.example.rqchallenge.employees;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * The back-end answered 429 Too Many Requests, possibly saying when to come back.
+ */
+public class UpstreamThrottledException extends ServiceException {
+
+    private final Duration retryAfter;
+
+    public UpstreamThrottledException(String message,
+                                      Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @param message  Message to return to the client.
+     * @param response Throttled response, whose Retry-After header may be either delay-seconds or an HTTP date.
+     */
+    public static UpstreamThrottledException from(String message,
+                                                  ClientResponse response) {
+        return new UpstreamThrottledException(message, parseRetryAfter(response.headers()
+                                                                                .asHttpHeaders()
+                                                                                .getFirst(HttpHeaders.RETRY_AFTER)));
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration until = Duration.between(ZonedDateTime.now(),
+                                                  ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return Delay the back-end asked for, Empty if it did not say.
+     */
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
+
+}
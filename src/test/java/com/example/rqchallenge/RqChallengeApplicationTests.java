@@ -2,6 +2,7 @@ package com.example.rqchallenge;
 
 import com.example.rqchallenge.employees.Employee;
 import com.example.rqchallenge.employees.EmployeeController;
+import com.example.rqchallenge.employees.EmployeeQuery;
 import com.example.rqchallenge.employees.IEmployeeController;
 import com.example.rqchallenge.employees.IEmployeeService;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,15 +15,17 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 
-@SpringBootTest
+@SpringBootTest(properties = "employee.warm-up.enabled=false")
 class RqChallengeApplicationTests {
 
     private final Employee inputTestEmployee = new Employee(Integer.MAX_VALUE, "Dr. Heath Botello", 88500, 42, "");
@@ -97,6 +100,19 @@ class RqChallengeApplicationTests {
         // mock service
         when(employeeService.getAllEmployees()).thenReturn(Flux.fromIterable(testData));
         when(employeeService.getEmployeeById(500)).thenReturn(Mono.just(Optional.of(testData.get(5))));
+        when(employeeService.getEmployeesByIds(anyList())).thenAnswer(x -> {
+            List<Integer> submittedIds = (List<Integer>) x.getArguments()[0];
+            return Flux.fromIterable(submittedIds)
+                       .flatMapIterable(id -> testData.stream()
+                                                      .filter(e -> e.getId() == id)
+                                                      .collect(Collectors.toList()));
+        });
+        when(employeeService.queryEmployees(any())).thenAnswer(x -> {
+            EmployeeQuery query = (EmployeeQuery) x.getArguments()[0];
+            return Flux.fromIterable(testData)
+                       .filter(query::matches)
+                       .take(query.getLimit() == null ? Long.MAX_VALUE : query.getLimit());
+        });
         when(employeeService.createEmployee(any())).thenAnswer(x -> {
             Map<String, Object> submitted = (Map<String, Object>) x.getArguments()[0];
             return getOutputTestEmployee(submitted);
@@ -146,6 +162,32 @@ class RqChallengeApplicationTests {
         assertEmployeeMatches(testData.get(5), employee);
     }
 
+    @Test
+    void testGetEmployeesByIds() {
+        List<Employee> employees = employeeController.getEmployeesByIds(" 500,50 , 99999,100")
+                                                     .collectList()
+                                                     .block();
+        String message = "getEmployeesByIds should return %s";
+        assertNotNull(employees, format(message, "a non-null list."));
+        assertEquals(3, employees.size(), format(message, "only the IDs which exist."));
+        assertEmployeeMatches(testData.get(5), employees.get(0));
+        assertEmployeeMatches(testData.get(0), employees.get(1));
+        assertEmployeeMatches(testData.get(1), employees.get(2));
+    }
+
+    @Test
+    void testQueryEmployees() {
+        List<Employee> employees = employeeController.queryEmployees(50000, null, null, 30, "a", 3)
+                                                     .collectList()
+                                                     .block();
+        String message = "queryEmployees should return %s";
+        assertNotNull(employees, format(message, "a non-null list."));
+        assertEquals(3, employees.size(), format(message, "no more than the limit."));
+        assertEmployeeMatches(testData.get(4), employees.get(0));
+        assertEmployeeMatches(testData.get(6), employees.get(1));
+        assertEmployeeMatches(testData.get(7), employees.get(2));
+    }
+
     @Test
     void testGetEmployeesByNameSearch() {
         Flux<Employee> employeeFlux = employeeController.getEmployeesByNameSearch("Hayden");
@@ -0,0 +1,169 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the real {@link EmployeeService}, {@link FluxCache} and {@link CreateJobQueue} against a {@link StubUpstream}
+ * with BlockHound active, so any blocking call on a non-blocking thread fails the run.
+ * Run with {@code ./gradlew performanceTest}.
+ */
+@Tag("performance")
+@SpringBootTest(properties = {
+        "employee.cache.throttle-time-ms=250",
+        "employee.rate-limit.permits-per-second=10000"
+})
+class BlockingPathsPerformanceTests {
+
+    private static final int ROSTER_SIZE = 500;
+    private static final int OPERATIONS = 5000;
+    private static final int CONCURRENCY = 64;
+    private static final StubUpstream upstream = new StubUpstream(ROSTER_SIZE);
+    private static final Path workDir = createWorkDir();
+
+    @Autowired
+    private IEmployeeService service;
+    @Autowired
+    private CreateJobQueue createJobQueue;
+
+    private static Path createWorkDir() {
+        try {
+            return Files.createTempDirectory("blocking-paths");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("employee.base-uri", upstream::baseUri);
+        registry.add("employee.async.journal-path", () -> workDir.resolve("create-jobs.journal")
+                                                                 .toString());
+    }
+
+    @BeforeAll
+    static void installBlockHound() {
+        BlockHound.install();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    private static Mono<?> timed(Supplier<Mono<?>> operation,
+                                 LatencyStats stats) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return operation.get()
+                            .doOnTerminate(() -> stats.record(System.nanoTime() - start));
+        });
+    }
+
+    private Mono<?> operation(int i) {
+        switch (i % 20) {
+            case 0:
+                return service.getAllEmployees()
+                              .then();
+            case 1:
+                Map<String, Object> input = new HashMap<>();
+                input.put("name", "Load Test " + i);
+                input.put("salary", 50000 + i);
+                input.put("age", 30);
+                return createJobQueue.submit(input, "load-test-" + i);
+            default:
+                return service.getEmployeeById(1 + i % ROSTER_SIZE);
+        }
+    }
+
+    @Test
+    void hotPathsDoNotBlockUnderConcurrentLoad() {
+        LatencyStats stats = new LatencyStats();
+        long start = System.nanoTime();
+        Flux.range(0, OPERATIONS)
+            .flatMap(i -> timed(() -> operation(i), stats).subscribeOn(Schedulers.parallel()), CONCURRENCY)
+            .then()
+            .block(Duration.ofMinutes(2));
+        System.out.println(stats.summary("service hot paths", System.nanoTime() - start));
+        System.out.printf("upstream calls: employees=%d employee=%d create=%d%n",
+                          upstream.calls("employees"),
+                          upstream.calls("employee"),
+                          upstream.calls("create"));
+        assertEquals(OPERATIONS, stats.count());
+    }
+
+    /**
+     * Compares the bounded elastic scheduler against virtual threads for a journal-like blocking workload
+     * (a small file append plus simulated device latency), as used by the blocking adapter paths.
+     */
+    @Test
+    void blockingAdapterThroughputByScheduler() throws IOException {
+        List<String> modes = new ArrayList<>(List.of(BlockingSchedulers.BOUNDED_ELASTIC));
+        if (BlockingSchedulers.virtualThreadsAvailable()) {
+            modes.add(BlockingSchedulers.VIRTUAL);
+        } else {
+            System.out.printf("virtual threads unavailable on Java %d, run on Java 21 to compare%n",
+                              Runtime.version()
+                                     .feature());
+        }
+        for (String mode : modes) {
+            Scheduler scheduler = BlockingSchedulers.create(mode);
+            Path file = workDir.resolve(mode + ".log");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                LatencyStats stats = new LatencyStats();
+                long start = System.nanoTime();
+                Flux.range(0, OPERATIONS)
+                    .flatMap(i -> timed(() -> Mono.fromRunnable(() -> blockingAppend(channel, i))
+                                                  .subscribeOn(scheduler), stats), 256)
+                    .then()
+                    .block(Duration.ofMinutes(2));
+                System.out.println(stats.summary("blocking adapter " + mode, System.nanoTime() - start));
+                assertEquals(OPERATIONS, stats.count());
+            } finally {
+                scheduler.dispose();
+            }
+        }
+    }
+
+    @SuppressWarnings("BlockingMethodInNonBlockingContext")
+    private static void blockingAppend(FileChannel channel,
+                                       int i) {
+        try {
+            channel.write(ByteBuffer.wrap(("record " + i + "\n").getBytes()));
+            Thread.sleep(2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void sizedForTheExpectedKeysAndRate() {
+        // m = -n ln(p) / ln(2)^2 = 9586 bits, rounded up to whole words; k = m / n ln(2) = 7
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        assertEquals(9600L, ReflectionTestUtils.getField(filter, "bitCount"));
+        assertEquals(7, ReflectionTestUtils.getField(filter, "hashCount"));
+
+        BloomFilter tiny = new BloomFilter(0, 0.5);
+        assertEquals(64L, ReflectionTestUtils.getField(tiny, "bitCount"));
+    }
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int key = -5000; key < 5000; key++) {
+            filter.add(key * 7919);
+        }
+        for (int key = -5000; key < 5000; key++) {
+            assertTrue(filter.mightContain(key * 7919), String.valueOf(key));
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearTheTarget() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int key = 1; key <= 10000; key++) {
+            filter.add(key);
+        }
+        int falsePositives = 0;
+        int absent = 100000;
+        for (int key = 1000001; key <= 1000000 + absent; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / absent;
+        assertTrue(rate < 0.015, String.valueOf(rate));
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreateJobQueueTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final IEmployeeService service = mock(IEmployeeService.class);
+    private Path journalPath;
+    private CreateJobJournal journal;
+    private CreateJobQueue queue;
+
+    @BeforeEach
+    void createJournalPath() throws IOException {
+        journalPath = Files.createTempFile("create-jobs", ".journal");
+    }
+
+    @AfterEach
+    void stopQueue() throws IOException {
+        if (queue != null) {
+            queue.stop();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        Files.deleteIfExists(journalPath);
+    }
+
+    private CreateJobJournal journal(long retentionMs) {
+        CreateJobJournal journal = new CreateJobJournal(mapper);
+        ReflectionTestUtils.setField(journal, "journalPath", journalPath.toString());
+        ReflectionTestUtils.setField(journal, "retentionMs", retentionMs);
+        return journal;
+    }
+
+    private CreateJobQueue queue(CreateJobJournal journal,
+                                 int capacity) {
+        this.journal = journal;
+        CreateJobQueue queue = new CreateJobQueue(service, journal, Schedulers.boundedElastic());
+        ReflectionTestUtils.setField(queue, "workerCount", 2);
+        ReflectionTestUtils.setField(queue, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(queue, "compactIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(queue, "retryAfterSeconds", 5L);
+        queue.start();
+        return queue;
+    }
+
+    private static Map<String, Object> input(String name) {
+        Map<String, Object> input = new HashMap<>();
+        input.put("name", name);
+        input.put("salary", 50000);
+        input.put("age", 30);
+        return input;
+    }
+
+    private CreateJob await(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            Optional<CreateJob> job = queue.getJob(TenantRegistry.DEFAULT_TENANT, jobId);
+            if (job.isPresent() && job.get()
+                                      .isDone()) {
+                return job.get();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job did not finish: " + jobId);
+    }
+
+    @Test
+    void journalReplaysLatestStateOfRetainedJobs() throws IOException {
+        CreateJobJournal journal = journal(60000);
+        assertTrue(journal.replay()
+                          .isEmpty());
+        CreateJob pending = CreateJob.pending("job-1", "default", null, input("Running"));
+        CreateJob running = pending.running();
+        CreateJob expired = CreateJob.pending("job-2", "default", null, input("Expired"))
+                                     .failed("gone");
+        expired.setUpdatedAt(System.currentTimeMillis() - 120000);
+        journal.append(pending);
+        journal.append(running);
+        journal.append(expired);
+        journal.close();
+        // a torn final record, as left by a crash mid-write
+        Files.write(journalPath, "{\"id\":\"torn".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        CreateJobJournal reopened = journal(60000);
+        Map<String, CreateJob> jobs = reopened.replay();
+        assertEquals(List.of(running.getId()), List.copyOf(jobs.keySet()));
+        assertEquals(CreateJob.State.RUNNING, jobs.get(running.getId())
+                                                  .getState());
+        reopened.close();
+        // replay compacted the journal to the retained job
+        assertEquals(1, Files.readAllLines(journalPath)
+                             .size());
+    }
+
+    @Test
+    void repeatedKeyReturnsOriginalJobOnlyForSameInput() {
+        when(service.createEmployee(any())).thenReturn(Mono.never());
+        queue = queue(journal(60000), 10);
+
+        CreateJob first = queue.submit(input("Ann"), "key-1")
+                               .block(Duration.ofSeconds(5));
+        CreateJob repeat = queue.submit(input("Ann"), "key-1")
+                                .block(Duration.ofSeconds(5));
+        assertEquals(first.getId(), repeat.getId());
+        assertEquals(4, UUID.fromString(first.getId())
+                            .version());
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> queue.submit(input("Bob"), "key-1")
+                                                                     .block(Duration.ofSeconds(5)));
+
+        // keys are scoped to the tenant
+        CreateJob otherTenant = queue.submit(input("Ann"), "key-1")
+                                     .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, "other"))
+                                     .block(Duration.ofSeconds(5));
+        assertNotEquals(first.getId(), otherTenant.getId());
+    }
+
+    @Test
+    void submissionsBeyondCapacityAreRejected() {
+        when(service.createEmployee(any())).thenReturn(Mono.never());
+        queue = queue(journal(60000), 2);
+
+        queue.submit(input("Ann"), null)
+             .block(Duration.ofSeconds(5));
+        queue.submit(input("Bob"), null)
+             .block(Duration.ofSeconds(5));
+        QueueFullException rejected = assertThrows(QueueFullException.class, () -> queue.submit(input("Cid"), null)
+                                                                                        .block(Duration.ofSeconds(5)));
+        assertEquals(5, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    void finishedJobsAreEvictedWithTheirKeys() throws InterruptedException, IOException {
+        when(service.createEmployee(any())).thenReturn(Mono.just(new Employee(7, "Ann", 50000, 30, null)));
+        CreateJobJournal journal = journal(0);
+        queue = queue(journal, 10);
+
+        CreateJob job = queue.submit(input("Ann"), "key-1")
+                             .block(Duration.ofSeconds(5));
+        assertEquals(CreateJob.State.SUCCEEDED, await(job.getId()).getState());
+        Thread.sleep(5);
+
+        queue.evict();
+        assertEquals(Optional.empty(), queue.getJob(TenantRegistry.DEFAULT_TENANT, job.getId()));
+        assertTrue(Files.readAllLines(journalPath)
+                        .isEmpty());
+        // the key is free again, so a different body is a new job rather than a conflict
+        CreateJob next = queue.submit(input("Bob"), "key-1")
+                              .block(Duration.ofSeconds(5));
+        assertNotEquals(job.getId(), next.getId());
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTests {
+
+    @Test
+    void remainingTimeRunsDown() throws InterruptedException {
+        Deadline deadline = Deadline.after(Duration.ofMillis(200));
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remaining()
+                           .toMillis() <= 200);
+        assertTrue(deadline.allows(Duration.ofMillis(100)));
+        assertFalse(deadline.allows(Duration.ofMillis(300)));
+
+        Thread.sleep(250);
+        assertTrue(deadline.isExpired());
+        assertTrue(deadline.remaining()
+                           .isZero());
+        assertFalse(deadline.allows(Duration.ZERO));
+    }
+
+    @Test
+    void zeroBudgetIsExpiredAtOnce() {
+        assertTrue(Deadline.after(Duration.ZERO)
+                           .isExpired());
+    }
+
+    @Test
+    void deadlineIsCarriedInTheContext() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(1));
+        assertSame(deadline, Deadline.from(Context.of(Deadline.CONTEXT_KEY, deadline))
+                                     .orElseThrow());
+        assertTrue(Deadline.from(Context.empty())
+                           .isEmpty());
+    }
+
+}
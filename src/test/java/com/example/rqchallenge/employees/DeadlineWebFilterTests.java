@@ -0,0 +1,64 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineWebFilterTests {
+
+    /**
+     * @return Remaining budget (in ms) of the deadline the filter gave a request sending the header, if any.
+     */
+    private static long budgetMs(String header) {
+        DeadlineWebFilter filter = new DeadlineWebFilter();
+        ReflectionTestUtils.setField(filter, "defaultMs", 30000L);
+        ReflectionTestUtils.setField(filter, "maxMs", 120000L);
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/1");
+        if (header != null) {
+            request.header(DeadlineWebFilter.TIMEOUT_HEADER, header);
+        }
+        AtomicReference<Optional<Deadline>> deadline = new AtomicReference<>();
+        filter.filter(MockServerWebExchange.from(request), exchange -> Mono.deferContextual(context -> {
+                  deadline.set(Deadline.from(context));
+                  return Mono.empty();
+              }))
+              .block(Duration.ofSeconds(10));
+        return deadline.get()
+                       .orElseThrow()
+                       .remaining()
+                       .toMillis();
+    }
+
+    private static void assertNear(long expectedMs,
+                                   long actualMs) {
+        assertTrue(actualMs <= expectedMs && actualMs > expectedMs - 1000, expectedMs + " ~ " + actualMs);
+    }
+
+    @Test
+    void budgetComesFromTheHeader() {
+        assertNear(5000, budgetMs("5000"));
+        assertNear(5000, budgetMs(" 5000 "));
+    }
+
+    @Test
+    void budgetDefaultsWithoutAValidHeader() {
+        assertNear(30000, budgetMs(null));
+        assertNear(30000, budgetMs("soon"));
+    }
+
+    @Test
+    void budgetIsCapped() {
+        assertNear(120000, budgetMs("999999999"));
+        assertEquals(0, budgetMs("-5"));
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Open-loop load test for {@link IEmployeeController} against a {@link StubUpstream} which injects latency,
+ * 429 bursts and failures.
+ * Requests go over HTTP to the application on a random port, asking for gzip, so the web filters (deadline, tenant
+ * and stage trace), codecs and response compression are all part of each measured latency.
+ * Requests are issued on a fixed schedule regardless of how long earlier requests take, and each latency is measured
+ * from the request's intended start time, so queueing behind slow requests is not hidden (coordinated omission).
+ * <p>
+ * Tune with Gradle properties, for example:
+ * {@code ./gradlew performanceTest --tests '*LoadTests' -Ploadtest.rate=500 -Pemployee.cache.throttle-time-ms=60000}
+ * <ul>
+ *     <li>loadtest.rate, loadtest.duration-s, loadtest.roster-size</li>
+ *     <li>loadtest.latency-median-ms, loadtest.latency-sigma (log-normal upstream latency)</li>
+ *     <li>loadtest.throttle-burst-period-ms, loadtest.throttle-burst-length-ms, loadtest.throttle-rate</li>
+ *     <li>loadtest.failure-rate, loadtest.unknown-id-rate</li>
+ *     <li>any employee.* application property, e.g. cache and retry settings</li>
+ *     <li>employee.upstream.recording.mode=record to capture a run's upstream exchanges, and =replay to repeat them
+ *     exactly on later runs</li>
+ * </ul>
+ */
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EmployeeControllerLoadTests {
+
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+    private static final int DURATION_S = Integer.getInteger("loadtest.duration-s", 20);
+    private static final int ROSTER_SIZE = Integer.getInteger("loadtest.roster-size", 1000);
+    private static final int MAX_IN_FLIGHT = 4096;
+    private static final double UNKNOWN_ID_RATE = doubleProperty("loadtest.unknown-id-rate", 0.02);
+    private static final StubUpstream upstream = StubUpstream.builder()
+                                                             .rosterSize(ROSTER_SIZE)
+                                                             .latency(StubUpstream.Latency.logNormal(
+                                                                     doubleProperty("loadtest.latency-median-ms", 40),
+                                                                     doubleProperty("loadtest.latency-sigma", 0.5)))
+                                                             .throttleBursts(Duration.ofMillis(Long.getLong(
+                                                                                     "loadtest.throttle-burst-period-ms",
+                                                                                     10000)),
+                                                                             Duration.ofMillis(Long.getLong(
+                                                                                     "loadtest.throttle-burst-length-ms",
+                                                                                     1000)))
+                                                             .throttleRate(doubleProperty("loadtest.throttle-rate", 0))
+                                                             .failureRate(doubleProperty("loadtest.failure-rate", 0.005))
+                                                             .build();
+
+    @LocalServerPort
+    private int port;
+
+    private final Map<String, AtomicLong> outcomes = new ConcurrentSkipListMap<>();
+
+    private static double doubleProperty(String name,
+                                         double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("employee.base-uri", upstream::baseUri);
+        registry.add("employee.async.journal-path", () -> {
+            try {
+                return Files.createTempFile("load-test", ".journal")
+                            .toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    /**
+     * Request mix: mostly lookups by ID, with some searches and roster-wide aggregates.
+     *
+     * @return Status of the response, once its body has been read.
+     */
+    private static Mono<Integer> request(WebClient client,
+                                         long i) {
+        int roll = (int) (i % 100);
+        WebClient.RequestHeadersSpec<?> request;
+        if (roll < 5) {
+            request = client.get()
+                            .uri("/");
+        } else if (roll < 10) {
+            request = client.get()
+                            .uri("/highestSalary");
+        } else if (roll < 15) {
+            request = client.get()
+                            .uri("/search/{searchString}", "Employee 1");
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int id = random.nextDouble() < UNKNOWN_ID_RATE
+                    ? ROSTER_SIZE + 1 + random.nextInt(ROSTER_SIZE)
+                    : 1 + random.nextInt(ROSTER_SIZE);
+            request = client.get()
+                            .uri("/{id}", id);
+        }
+        return request.exchangeToMono(response -> response.bodyToMono(byte[].class)
+                                                          .then(Mono.just(response.rawStatusCode())));
+    }
+
+    private void count(String outcome) {
+        outcomes.computeIfAbsent(outcome, k -> new AtomicLong())
+                .incrementAndGet();
+    }
+
+    @Test
+    void fixedRateMixedLoad() {
+        // as many connections as requests in flight, so none wait on the client side, and decompressing what it asks
+        // to be compressed
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                                                           .maxConnections(MAX_IN_FLIGHT)
+                                                           .build();
+        WebClient client = WebClient.builder()
+                                    .baseUrl("http://127.0.0.1:" + port)
+                                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)
+                                                                                              .compress(true)))
+                                    .build();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        int total = RATE * DURATION_S;
+        LatencyStats stats = new LatencyStats();
+        long start = System.nanoTime();
+        Flux.interval(Duration.ofNanos(intervalNanos))
+            .take(total)
+            .onBackpressureBuffer()
+            .flatMap(i -> {
+                long intended = start + i * intervalNanos;
+                return request(client, i).doOnNext(status -> count(Integer.toString(status)))
+                                         .onErrorResume(e -> {
+                                             count(e.getClass()
+                                                    .getSimpleName());
+                                             return Mono.empty();
+                                         })
+                                         .doFinally(signal -> stats.record(System.nanoTime() - intended));
+            }, MAX_IN_FLIGHT)
+            .then()
+            .block(Duration.ofSeconds(DURATION_S * 3L + 60));
+        long elapsed = System.nanoTime() - start;
+        connections.dispose();
+
+        System.out.printf("target rate %d req/s for %d s against a roster of %d%n", RATE, DURATION_S, ROSTER_SIZE);
+        System.out.println(stats.summary("HTTP (CO-corrected)", elapsed));
+        System.out.println("outcomes by status: " + outcomes);
+        System.out.printf("upstream calls: employees=%d employee=%d; responses ok=%d throttled=%d failed=%d%n",
+                          upstream.calls("employees"),
+                          upstream.calls("employee"),
+                          upstream.outcomes("ok"),
+                          upstream.outcomes("throttled"),
+                          upstream.outcomes("failed"));
+        assertEquals(total, stats.count());
+    }
+
+}
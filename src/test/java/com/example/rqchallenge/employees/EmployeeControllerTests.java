@@ -0,0 +1,33 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmployeeControllerTests {
+
+    @Test
+    void topTenKeepsRosterOrderAmongEqualSalaries() {
+        List<Employee> roster = List.of(new Employee(1, "a", 500, 30, null),
+                                        new Employee(2, "b", 900, 30, null),
+                                        new Employee(3, "c", 500, 30, null),
+                                        new Employee(4, "d", 900, 30, null),
+                                        new Employee(5, "e", 100, 30, null),
+                                        new Employee(6, "f", 900, 30, null));
+        List<Integer> top = EmployeeController.topBySalary(Flux.fromIterable(roster), 4)
+                                              .map(Employee::getId)
+                                              .collectList()
+                                              .block();
+        assertEquals(List.of(2, 4, 6, 1), top);
+        assertEquals(roster.stream()
+                           .sorted((x, y) -> Integer.compare(y.getSalary(), x.getSalary()))
+                           .limit(4)
+                           .map(Employee::getId)
+                           .collect(Collectors.toList()), top);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmployeeExportControllerTests {
+
+    @Test
+    void csvFieldsAreQuotedWhenNeeded() {
+        assertEquals("Smith", EmployeeExportController.csvField("Smith"));
+        assertEquals("\"Smith, Jr.\"", EmployeeExportController.csvField("Smith, Jr."));
+        assertEquals("\"The \"\"Boss\"\"\"", EmployeeExportController.csvField("The \"Boss\""));
+        assertEquals("", EmployeeExportController.csvField(null));
+    }
+
+    @Test
+    void csvFieldsAreNotReadAsFormulas() {
+        assertEquals("'=1+1", EmployeeExportController.csvField("=1+1"));
+        assertEquals("'+1", EmployeeExportController.csvField("+1"));
+        assertEquals("'-1", EmployeeExportController.csvField("-1"));
+        assertEquals("'@SUM(A1)", EmployeeExportController.csvField("@SUM(A1)"));
+        assertEquals("\"'=1,2\"", EmployeeExportController.csvField("=1,2"));
+        // only a leading sign makes a formula
+        assertEquals("Jean-Luc", EmployeeExportController.csvField("Jean-Luc"));
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmployeeIdsTests {
+
+    @Test
+    void parseMatchesIntegerParseInt() {
+        for (String id : List.of("0", "7", "-7", "+7", "2147483647", "-2147483648", "000123")) {
+            assertEquals(Integer.parseInt(id), EmployeeIds.parse(id));
+        }
+        for (String id : List.of("", "-", "+", "x1", "1x", "1.5", "2147483648", "-2147483649", "99999999999")) {
+            assertThrows(NumberFormatException.class, () -> Integer.parseInt(id));
+            assertThrows(InvalidIdException.class, () -> EmployeeIds.parse(id));
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the {@link EmployeeIndex} planner against a plain filter of the same roster, for every combination of
+ * index paths: ranges alone, trigram name searches, short name searches which no index covers, and intersections.
+ */
+class EmployeeIndexTests {
+
+    private static final String[] NAMES = {"Barry", "Hargrove", "Matthei", "Clovis", "Hayden", "Erkan", "Sherry", "Pál",
+            "Rina", "Alice", "Lengyel", "Aparna", "Jones"};
+
+    private static List<Employee> roster(int size) {
+        Random random = new Random(42);
+        List<Employee> roster = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            String name = NAMES[random.nextInt(NAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)];
+            roster.add(new Employee(id, name, 15000 + random.nextInt(300000), 18 + random.nextInt(50), ""));
+        }
+        return roster;
+    }
+
+    private static void assertSameAsScan(List<Employee> roster,
+                                         EmployeeIndex index,
+                                         EmployeeQuery query,
+                                         int limit) {
+        List<Integer> expected = roster.stream()
+                                       .filter(query::matches)
+                                       .limit(limit)
+                                       .map(Employee::getId)
+                                       .collect(Collectors.toList());
+        List<Integer> actual = index.query(query, limit)
+                                    .stream()
+                                    .map(Employee::getId)
+                                    .collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void queriesMatchAFullScan() {
+        List<Employee> roster = roster(2000);
+        EmployeeIndex index = new EmployeeIndex(roster, 0);
+        int limit = 2000;
+        assertSameAsScan(roster, index, new EmployeeQuery(100000, 150000, null, null, null, null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(null, null, 30, 30, null, null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(null, null, null, null, "rry Jon", null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(null, null, null, null, "Pá", null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(50000, null, null, 25, "ice", null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(15000, 16000, 18, 67, "Rina", null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(null, null, null, null, "Nobody", null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(200000, 100000, null, null, null, null), limit);
+        assertSameAsScan(roster, index, new EmployeeQuery(null, null, null, null, null, null), 10);
+        assertSameAsScan(roster, index, new EmployeeQuery(null, 90000, 40, null, "e", null), 25);
+    }
+
+}
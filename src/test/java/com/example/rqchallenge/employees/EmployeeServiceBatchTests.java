@@ -0,0 +1,103 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * How {@link EmployeeService#getEmployeesByIds(List)} splits a batch into cache hits, individual fetches and a
+ * roster fetch, with the default bulk miss ratio of 0.5.
+ */
+class EmployeeServiceBatchTests {
+
+    private static List<Integer> ids(int from,
+                                     int to) {
+        return IntStream.rangeClosed(from, to)
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
+    private static List<Integer> batch(ServiceHarness harness,
+                                       List<Integer> ids) {
+        return harness.service.getEmployeesByIds(ids)
+                              .map(Employee::getId)
+                              .collectList()
+                              .block(Duration.ofSeconds(10));
+    }
+
+    private static void loadRoster(ServiceHarness harness) {
+        harness.service.getAllEmployees()
+                       .then()
+                       .block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void hitsAreAnsweredFromTheCache() {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            loadRoster(harness);
+
+            assertEquals(List.of(3, 1, 2), batch(harness, List.of(3, 1, 2)));
+            assertEquals(1, upstream.calls("employees"));
+            assertEquals(0, upstream.calls("employee"));
+        }
+    }
+
+    @Test
+    void mostlyMissesAreResolvedWithOneRosterFetch() {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+
+            assertEquals(ids(1, 10), batch(harness, ids(1, 10)));
+            assertEquals(1, upstream.calls("employees"));
+            assertEquals(0, upstream.calls("employee"));
+        }
+    }
+
+    @Test
+    void fewMissesAreFetchedIndividually() {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            FluxCache<Integer, Employee> cache = harness.tenant.getCache();
+            cache.renewThrottle();
+            ids(1, 8).forEach(id -> cache.put(id, new Employee(id, "Employee " + id, 50000, 30, null)));
+
+            // two misses out of ten, one of them asked for twice
+            assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 9), batch(harness, List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 9)));
+            assertEquals(0, upstream.calls("employees"));
+            assertEquals(2, upstream.calls("employee"));
+        }
+    }
+
+    @Test
+    void expiredEntriesCountAsMisses() throws InterruptedException {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 300);
+            loadRoster(harness);
+
+            Thread.sleep(400);
+            assertEquals(ids(1, 10), batch(harness, ids(1, 10)));
+            assertEquals(2, upstream.calls("employees"));
+            assertEquals(0, upstream.calls("employee"));
+        }
+    }
+
+    @Test
+    void knownMissingIdsAreAnsweredLocally() {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            loadRoster(harness);
+
+            // absent from the roster just loaded, so neither fetched nor counted towards a roster fetch
+            assertEquals(List.of(1), batch(harness, List.of(1, 1001, 1002, 1003)));
+            assertEquals(1, upstream.calls("employees"));
+            assertEquals(0, upstream.calls("employee"));
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.Counter;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Upstream calls given up on because of the request's {@link Deadline} or the client going away, against a back-end
+ * taking 500 ms to answer.
+ */
+class EmployeeServiceDeadlineTests {
+
+    private static StubUpstream slowUpstream() {
+        return StubUpstream.builder()
+                           .rosterSize(10)
+                           .latency(StubUpstream.Latency.fixed(500))
+                           .build();
+    }
+
+    private static Mono<Optional<Employee>> getWithin(ServiceHarness harness,
+                                                      Duration budget) {
+        return harness.service.getEmployeeById(1)
+                              .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, Deadline.after(budget)));
+    }
+
+    private static Counter abandoned(ServiceHarness harness,
+                                     String reason) {
+        return harness.meterRegistry.find("employee.upstream.abandoned")
+                                    .tag("reason", reason)
+                                    .counter();
+    }
+
+    @Test
+    void callOutlivingTheDeadlineTimesOut() {
+        try (StubUpstream upstream = slowUpstream()) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            assertThrows(DeadlineExceededException.class, () -> getWithin(harness, Duration.ofMillis(100)).block());
+
+            assertEquals(1.0, abandoned(harness, "timeout").count());
+            assertNull(abandoned(harness, "cancelled"));
+        }
+    }
+
+    @Test
+    void spentBudgetNeverReachesTheBackEnd() {
+        try (StubUpstream upstream = slowUpstream()) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            assertThrows(DeadlineExceededException.class, () -> getWithin(harness, Duration.ZERO).block());
+
+            assertEquals(1.0, abandoned(harness, "expired").count());
+            assertEquals(0, upstream.calls("employee"));
+        }
+    }
+
+    @Test
+    void clientGoingAwayCancelsTheCall() throws InterruptedException {
+        try (StubUpstream upstream = slowUpstream()) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            Disposable request = getWithin(harness, Duration.ofSeconds(10)).subscribe();
+            Thread.sleep(100);
+            request.dispose();
+
+            assertEquals(1.0, abandoned(harness, "cancelled").count());
+            assertNull(abandoned(harness, "timeout"));
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * When {@link EmployeeService#queryEmployees(EmployeeQuery)} shares, reuses and rebuilds its index of the roster.
+ */
+class EmployeeServiceQueryTests {
+
+    private static final EmployeeQuery ALL = new EmployeeQuery(null, null, null, null, null, 1000);
+
+    private static List<Employee> query(ServiceHarness harness,
+                                        EmployeeQuery query) {
+        return harness.service.queryEmployees(query)
+                              .collectList()
+                              .block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void concurrentQueriesShareOneBuild() {
+        try (StubUpstream upstream = StubUpstream.builder()
+                                                 .rosterSize(50)
+                                                 .latency(StubUpstream.Latency.fixed(200))
+                                                 .build()) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            List<List<Employee>> results = Flux.merge(harness.service.queryEmployees(ALL)
+                                                                     .collectList(),
+                                                      harness.service.queryEmployees(ALL)
+                                                                     .collectList())
+                                               .collectList()
+                                               .block(Duration.ofSeconds(10));
+            assertEquals(50, results.get(0)
+                                    .size());
+            assertEquals(50, results.get(1)
+                                    .size());
+            assertEquals(1, upstream.calls("employees"));
+        }
+    }
+
+    @Test
+    void cacheChangesRebuildFromTheCache() {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            assertEquals(50, query(harness, ALL).size());
+
+            harness.tenant.getCache()
+                          .put(999, new Employee(999, "Zed Nobody", 10000, 20, null));
+            List<Employee> found = query(harness, new EmployeeQuery(null, null, null, null, "Zed", null));
+            assertEquals(List.of(999), found.stream()
+                                            .map(Employee::getId)
+                                            .collect(Collectors.toList()));
+            assertEquals(1, upstream.calls("employees"));
+        }
+    }
+
+    @Test
+    void indexOlderThanTheThrottleTimeIsRebuilt() throws InterruptedException {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 300);
+            query(harness, ALL);
+            // the first build loaded the roster, so the next one picks up the cache as loaded
+            query(harness, ALL);
+            assertEquals(1, upstream.calls("employees"));
+
+            // nothing changed the cache since, but the roster it holds has expired
+            Thread.sleep(400);
+            assertEquals(50, query(harness, ALL).size());
+            assertEquals(2, upstream.calls("employees"));
+        }
+    }
+
+    @Test
+    void failedBuildIsNotReused() {
+        try (StubUpstream upstream = StubUpstream.builder()
+                                                 .rosterSize(50)
+                                                 .failureRate(1.0)
+                                                 .build()) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            assertThrows(ServiceException.class, () -> query(harness, ALL));
+            long failedCalls = upstream.calls("employees");
+
+            upstream.setFailureRate(0);
+            assertEquals(50, query(harness, ALL).size());
+            assertEquals(failedCalls + 1, upstream.calls("employees"));
+        }
+    }
+
+    @Test
+    void negativeLimitIsRejected() {
+        try (StubUpstream upstream = new StubUpstream(50)) {
+            ServiceHarness harness = new ServiceHarness(upstream, 60000);
+            assertThrows(InvalidLimitException.class,
+                         () -> query(harness, new EmployeeQuery(null, null, null, null, null, -1)));
+            assertEquals(0, upstream.calls("employees"));
+            assertTrue(query(harness, new EmployeeQuery(null, null, null, null, null, 0)).isEmpty());
+        }
+    }
+
+}
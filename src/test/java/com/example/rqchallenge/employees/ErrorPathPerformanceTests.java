@@ -0,0 +1,157 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the 400 (invalid ID) and 404 (unknown ID) paths, as seen under scanner traffic.
+ * Requests per second are measured end to end over HTTP; the cost of the old error path (a NumberFormatException or
+ * stack-capturing exception, formatted for the log) is compared with the stackless one in-process.
+ * For an end-to-end before and after, run {@code ./gradlew performanceTest --tests '*ErrorPathPerformanceTests'} on
+ * this commit and its parent.
+ */
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "employee.rate-limit.permits-per-second=10000",
+                "employee.rate-limit.burst=10000"
+        })
+class ErrorPathPerformanceTests {
+
+    private static final int REQUESTS = 20000;
+    private static final int CONCURRENCY = 64;
+    private static final int ITERATIONS = 200000;
+    private static final StubUpstream upstream = new StubUpstream(100);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("employee.base-uri", upstream::baseUri);
+        registry.add("employee.async.journal-path", () -> {
+            try {
+                return Files.createTempFile("error-path", ".journal")
+                            .toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    /**
+     * @return Requests per second, after checking every response had the expected status.
+     */
+    private double requestsPerSecond(WebClient client,
+                                     IntFunction<String> uri,
+                                     int expectedStatus) {
+        Map<Integer, AtomicLong> statuses = new ConcurrentSkipListMap<>();
+        long start = System.nanoTime();
+        Flux.range(0, REQUESTS)
+            .flatMap(i -> client.get()
+                                .uri(uri.apply(i))
+                                .exchangeToMono(response -> response.releaseBody()
+                                                                    .thenReturn(response.rawStatusCode())),
+                     CONCURRENCY)
+            .doOnNext(status -> statuses.computeIfAbsent(status, k -> new AtomicLong())
+                                        .incrementAndGet())
+            .then()
+            .block(Duration.ofMinutes(2));
+        long elapsed = System.nanoTime() - start;
+        assertEquals(Map.of(expectedStatus, (long) REQUESTS),
+                     statuses.entrySet()
+                             .stream()
+                             .collect(Collectors.toMap(Map.Entry::getKey,
+                                                       entry -> entry.getValue()
+                                                                     .get())));
+        return REQUESTS / (elapsed / 1e9);
+    }
+
+    @Test
+    void clientErrorThroughput() {
+        WebClient client = WebClient.create("http://127.0.0.1:" + port);
+        // first pass warms up the JIT, and the negative cache for the unknown IDs
+        for (int pass = 0; pass < 2; pass++) {
+            double invalid = requestsPerSecond(client, i -> "/x" + i, 400);
+            double unknown = requestsPerSecond(client, i -> "/" + (100000 + i % 500), 404);
+            System.out.printf("pass %d: invalid ID %.0f req/s, unknown ID %.0f req/s%n", pass, invalid, unknown);
+        }
+    }
+
+    private static void operationsPerSecond(String label,
+                                            ToIntFunction<Integer> operation) {
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            sink += operation.applyAsInt(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.applyAsInt(i);
+        }
+        double perSecond = ITERATIONS / ((System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1));
+        System.out.printf("%s: %.0f ops/s (%d)%n", label, perSecond, sink & 1);
+    }
+
+    /**
+     * Stack trace formatting stands in for the log call, without the log I/O.
+     */
+    private static int formatted(Throwable e) {
+        StringWriter out = new StringWriter();
+        e.printStackTrace(new PrintWriter(out));
+        return out.getBuffer()
+                  .length();
+    }
+
+    @Test
+    void errorConstructionCost() {
+        operationsPerSecond("invalid ID, before (NumberFormatException, logged with stack)", i -> {
+            try {
+                return Integer.parseInt("x" + i);
+            } catch (NumberFormatException e) {
+                return formatted(e);
+            }
+        });
+        operationsPerSecond("invalid ID, after (shared stackless exception)", i -> {
+            try {
+                return EmployeeIds.parse("x" + i);
+            } catch (InvalidIdException e) {
+                return e.getMessage()
+                        .length();
+            }
+        });
+        operationsPerSecond("unknown ID, before (exception with stack, logged with stack)",
+                            i -> formatted(new RuntimeException("ID " + i + " could not be found.")));
+        operationsPerSecond("unknown ID, after (stackless exception)",
+                            i -> new IdNotFoundException(i).getMessage()
+                                                           .length());
+    }
+
+}
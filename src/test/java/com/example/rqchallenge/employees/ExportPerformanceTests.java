@@ -0,0 +1,133 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports a large roster as CSV and NDJSON, at full speed and to a client reading slowly.
+ * The slow client stops reading part way; the export must stay bounded by its demand rather than the roster size.
+ */
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "employee.rate-limit.permits-per-second=10000",
+                "employee.rate-limit.burst=10000",
+                "employee.warm-up.enabled=false"
+        })
+class ExportPerformanceTests {
+
+    private static final int ROSTER_SIZE = 100000;
+    private static final StubUpstream upstream = new StubUpstream(ROSTER_SIZE);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("employee.base-uri", upstream::baseUri);
+        registry.add("employee.async.journal-path", () -> {
+            try {
+                return Files.createTempFile("export", ".journal")
+                            .toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    /**
+     * @return Number of lines in the export.
+     */
+    private long lines(WebClient client,
+                       String format) {
+        AtomicLong lines = new AtomicLong();
+        long start = System.nanoTime();
+        client.get()
+              .uri("/export?format=" + format)
+              .retrieve()
+              .bodyToFlux(DataBuffer.class)
+              .doOnNext(buffer -> {
+                  for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
+                      if (buffer.getByte(i) == '\n') {
+                          lines.incrementAndGet();
+                      }
+                  }
+                  DataBufferUtils.release(buffer);
+              })
+              .then()
+              .block(Duration.ofMinutes(2));
+        System.out.printf("%s export: %d lines in %.0f ms%n", format, lines.get(), (System.nanoTime() - start) / 1e6);
+        return lines.get();
+    }
+
+    @Test
+    void exportsWholeRoster() {
+        WebClient client = WebClient.create("http://127.0.0.1:" + port);
+        // first pass warms up the JIT and the cache
+        for (int pass = 0; pass < 2; pass++) {
+            assertEquals(ROSTER_SIZE + 1, lines(client, "csv"));
+            assertEquals(ROSTER_SIZE, lines(client, "ndjson"));
+        }
+        String head = client.get()
+                            .uri("/export")
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .map(buffer -> {
+                                String text = buffer.toString(StandardCharsets.UTF_8);
+                                DataBufferUtils.release(buffer);
+                                return text;
+                            })
+                            .next()
+                            .block(Duration.ofSeconds(30));
+        assertTrue(head != null && head.startsWith("id,name,salary,age,profileImage\r\n1,Employee 1,"), head);
+    }
+
+    @Test
+    void slowClientIsServedOnDemand() {
+        WebClient client = WebClient.create("http://127.0.0.1:" + port);
+        lines(client, "csv");
+        AtomicLong received = new AtomicLong();
+        long start = System.nanoTime();
+        client.get()
+              .uri("/export?format=csv")
+              .retrieve()
+              .bodyToFlux(DataBuffer.class)
+              .limitRate(1)
+              .delayElements(Duration.ofMillis(20))
+              .doOnNext(buffer -> {
+                  received.addAndGet(buffer.readableByteCount());
+                  DataBufferUtils.release(buffer);
+              })
+              .take(50)
+              .then()
+              .block(Duration.ofMinutes(1));
+        System.out.printf("slow client: %d bytes in %.0f ms before disconnecting%n",
+                          received.get(), (System.nanoTime() - start) / 1e6);
+        // the server must still answer promptly after the abandoned export
+        assertEquals(ROSTER_SIZE, lines(client, "ndjson"));
+    }
+
+}
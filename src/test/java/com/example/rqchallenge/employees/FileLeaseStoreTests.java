@@ -0,0 +1,60 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two stores on one directory stand in for two replicas sharing it; across processes the lock is the operating
+ * system's, within one it is the stores' shared record of held leases.
+ */
+class FileLeaseStoreTests {
+
+    @Test
+    void oneHolderAtATime() throws IOException {
+        Path directory = Files.createTempDirectory("leases");
+        FileLeaseStore first = new FileLeaseStore(directory);
+        FileLeaseStore second = new FileLeaseStore(directory);
+
+        Optional<LeaseStore.Lease> lease = first.tryAcquire("roster-default");
+        assertTrue(lease.isPresent());
+        assertFalse(first.tryAcquire("roster-default")
+                         .isPresent());
+        assertFalse(second.tryAcquire("roster-default")
+                          .isPresent());
+        assertTrue(second.tryAcquire("roster-other")
+                         .isPresent());
+
+        lease.get()
+             .close();
+        Optional<LeaseStore.Lease> taken = second.tryAcquire("roster-default");
+        assertTrue(taken.isPresent());
+        taken.get()
+             .close();
+    }
+
+    @Test
+    void publishedSnapshotIsSharedWithOtherStores() throws IOException {
+        Path directory = Files.createTempDirectory("leases");
+        FileLeaseStore first = new FileLeaseStore(directory);
+        FileLeaseStore second = new FileLeaseStore(directory);
+        assertFalse(second.latest("roster-default")
+                          .isPresent());
+
+        byte[] content = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+        first.publish("roster-default", content);
+        LeaseStore.Snapshot snapshot = second.latest("roster-default")
+                                             .orElseThrow();
+        assertArrayEquals(content, snapshot.getContent());
+        assertTrue(snapshot.getPublishedAt() > 0);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Local writes racing roster loads which predate them: the writes must survive until a load confirms them.
+ */
+class FluxCacheConsistencyTests {
+
+    private static Employee employee(int id) {
+        return new Employee(id, "Employee " + id, 50000, 30, null);
+    }
+
+    private static List<Employee> roster(int... ids) {
+        List<Employee> roster = new ArrayList<>();
+        for (int id : ids) {
+            roster.add(employee(id));
+        }
+        return roster;
+    }
+
+    private static List<Integer> load(FluxCache<Integer, Employee> cache,
+                                      List<Employee> roster) {
+        return cache.cacheDownstreamBulk(Mono.just(roster), Employee::getId)
+                    .block()
+                    .stream()
+                    .map(Employee::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+    }
+
+    @Test
+    void createSurvivesStaleRoster() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        load(cache, roster(1, 2));
+        cache.put(3, employee(3));
+
+        assertEquals(List.of(1, 2, 3), load(cache, roster(1, 2)));
+        assertTrue(cache.peek(3)
+                        .isPresent());
+        assertTrue(cache.isPending(3));
+
+        assertEquals(List.of(1, 2, 3), load(cache, roster(1, 2, 3)));
+        assertFalse(cache.isPending(3));
+        assertEquals(0, cache.pendingCount());
+    }
+
+    @Test
+    void deleteSurvivesStaleRoster() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        load(cache, roster(1, 2, 3));
+        cache.deleteFromCache(2);
+
+        assertEquals(List.of(1, 3), load(cache, roster(1, 2, 3)));
+        assertFalse(cache.peek(2)
+                         .isPresent());
+        assertTrue(cache.isPending(2));
+
+        assertEquals(List.of(1, 3), load(cache, roster(1, 3)));
+        assertEquals(0, cache.pendingCount());
+    }
+
+    @Test
+    void staleSingleFetchDoesNotUndoDelete() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        load(cache, roster(1, 2));
+        Mono<Optional<Employee>> inFlight = Mono.just(Optional.of(employee(2)));
+        cache.deleteFromCache(2);
+
+        assertEquals(Optional.empty(), cache.cacheDownstream(2, inFlight)
+                                            .block());
+        assertFalse(cache.peek(2)
+                         .isPresent());
+    }
+
+    @Test
+    void unconfirmedWritesExpireAfterThrottleTime() throws InterruptedException {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(50, 0, 4);
+        load(cache, roster(1, 2));
+        cache.put(3, employee(3));
+        Thread.sleep(100);
+
+        // the back-end never acknowledged the write, so after one cache lifetime its roster wins
+        assertEquals(List.of(1, 2), load(cache, roster(1, 2)));
+        assertFalse(cache.peek(3)
+                         .isPresent());
+        assertEquals(0, cache.pendingCount());
+    }
+
+}
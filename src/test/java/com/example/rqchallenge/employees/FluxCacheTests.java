@@ -0,0 +1,151 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * With four shards, a small integer key {@code k} lives in shard {@code k % 4}.
+ */
+class FluxCacheTests {
+
+    private static List<Employee> roster(IntStream ids) {
+        return ids.mapToObj(id -> new Employee(id, "Employee " + id, 50000, 30, null))
+                  .collect(Collectors.toList());
+    }
+
+    private static void load(FluxCache<Integer, Employee> cache,
+                             List<Employee> roster) {
+        cache.cacheDownstreamBulk(Mono.just(roster), Employee::getId)
+             .block();
+    }
+
+    private static boolean cached(FluxCache<Integer, Employee> cache,
+                                  int id) {
+        Optional<Employee> employee = cache.cacheUpstream(id)
+                                           .block();
+        return employee != null && employee.isPresent();
+    }
+
+    private static Optional<List<Integer>> bulk(FluxCache<Integer, Employee> cache) {
+        return cache.cacheUpstreamBulk()
+                    .map(flux -> flux.map(Employee::getId)
+                                     .collectList()
+                                     .block());
+    }
+
+    @Test
+    void eachShardHasItsOwnThrottle() throws InterruptedException {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        load(cache, roster(IntStream.rangeClosed(1, 8)));
+        Thread.sleep(5);
+
+        // the first read of an expired shard claims the refresh, the following ones are served from the cache
+        assertFalse(cached(cache, 1));
+        assertTrue(cached(cache, 1));
+        assertTrue(cached(cache, 5));
+        // another shard's throttle has run out independently
+        assertFalse(cached(cache, 2));
+        assertTrue(cached(cache, 6));
+    }
+
+    @Test
+    void bulkLoadSwapsEveryShard() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        load(cache, roster(IntStream.rangeClosed(1, 8)));
+        assertEquals(4, cache.getShardSwaps());
+        cache.renewThrottle();
+        assertEquals(8, bulk(cache).orElseThrow()
+                                   .size());
+
+        long version = cache.getVersion();
+        load(cache, roster(IntStream.rangeClosed(1, 6)));
+        assertEquals(8, cache.getShardSwaps());
+        assertTrue(cache.getVersion() > version);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), bulk(cache).orElseThrow());
+    }
+
+    @Test
+    void versionOnlyChangesWithTheEntries() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        cache.put(1, new Employee(1, "Ann", 50000, 30, null));
+        long version = cache.getVersion();
+
+        // refetched and rewritten unchanged, as steady traffic does
+        cache.cacheDownstream(1, Mono.just(Optional.of(new Employee(1, "Ann", 50000, 30, null))))
+             .block();
+        cache.put(1, new Employee(1, "Ann", 50000, 30, null));
+        cache.deleteFromCache(2);
+        assertEquals(version, cache.getVersion());
+
+        cache.put(1, new Employee(1, "Ann", 60000, 30, null));
+        assertTrue(cache.getVersion() > version);
+        version = cache.getVersion();
+        cache.deleteFromCache(1);
+        assertTrue(cache.getVersion() > version);
+    }
+
+    @Test
+    void bulkReadsAreInKeyOrder() {
+        List<Employee> roster = roster(IntStream.rangeClosed(1, 200));
+        Collections.shuffle(roster, new Random(42));
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        load(cache, roster);
+        cache.renewThrottle();
+
+        assertEquals(IntStream.rangeClosed(1, 200)
+                              .boxed()
+                              .collect(Collectors.toList()), bulk(cache).orElseThrow());
+    }
+
+    @Test
+    void entriesCachedOneAtATimeDoNotAnswerBulkReads() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 0, 4);
+        cache.renewThrottle();
+        cache.put(1, roster(IntStream.of(1)).get(0));
+        assertTrue(bulk(cache).isEmpty());
+    }
+
+    @Test
+    void budgetIsSharedAcrossUnevenShards() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 10, 4);
+        // every key in the same shard, which an even split of the budget would have cut to 3 entries
+        load(cache, roster(IntStream.rangeClosed(1, 10)
+                                    .map(i -> 4 * i)));
+        cache.renewThrottle();
+        assertEquals(10, cache.size());
+        assertEquals(10, bulk(cache).orElseThrow()
+                                    .size());
+    }
+
+    @Test
+    void budgetCutsOffBulkLoadsAndLaterWrites() {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(60000, 10, 4);
+        load(cache, roster(IntStream.rangeClosed(1, 20)));
+        cache.renewThrottle();
+        assertEquals(10, cache.size());
+        // what is held is not the whole data set
+        assertTrue(bulk(cache).isEmpty());
+
+        load(cache, roster(IntStream.rangeClosed(1, 10)));
+        assertTrue(bulk(cache).isPresent());
+        roster(IntStream.of(3, 11))
+                .forEach(employee -> cache.put(employee.getId(), employee));
+        // the write to a held key replaced it; the new key did not fit
+        assertEquals(10, cache.size());
+        assertFalse(cache.peek(11)
+                         .isPresent());
+        assertTrue(bulk(cache).isEmpty());
+    }
+
+}
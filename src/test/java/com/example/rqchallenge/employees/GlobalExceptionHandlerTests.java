@@ -0,0 +1,89 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Status codes the handler gives the service's exceptions, raised by a stand-in controller.
+ */
+class GlobalExceptionHandlerTests {
+
+    private final WebTestClient client = WebTestClient.bindToController(new FailingController())
+                                                      .controllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry(),
+                                                                                                   10000,
+                                                                                                   5))
+                                                      .build();
+
+    @RestController
+    static class FailingController {
+
+        @GetMapping("/deadline")
+        Mono<String> deadline() {
+            return Mono.error(new DeadlineExceededException());
+        }
+
+        @GetMapping("/job")
+        Mono<String> job() {
+            return Mono.error(new JobNotFoundException("abc"));
+        }
+
+        @GetMapping("/queue-full")
+        Mono<String> queueFull() {
+            return Mono.error(new QueueFullException(5));
+        }
+
+        @GetMapping("/tenant")
+        Mono<String> tenant() {
+            return Mono.error(new UnknownTenantException("other"));
+        }
+
+    }
+
+    private void assertStatus(String uri,
+                              HttpStatus status) {
+        client.get()
+              .uri(uri)
+              .exchange()
+              .expectStatus()
+              .isEqualTo(status);
+    }
+
+    @Test
+    void deadlineExceededIsGatewayTimeout() {
+        assertStatus("/deadline", HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @Test
+    void unknownJobIsNotFoundAsAJob() {
+        client.get()
+              .uri("/job")
+              .exchange()
+              .expectStatus()
+              .isNotFound()
+              .expectBody(String.class)
+              .isEqualTo("Job abc could not be found.");
+    }
+
+    @Test
+    void fullCreateQueueIsServiceUnavailableWithRetryAfter() {
+        client.get()
+              .uri("/queue-full")
+              .exchange()
+              .expectStatus()
+              .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+              .expectHeader()
+              .valueEquals(HttpHeaders.RETRY_AFTER, "5");
+    }
+
+    @Test
+    void unknownTenantIsBadRequest() {
+        assertStatus("/tenant", HttpStatus.BAD_REQUEST);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.example.rqchallenge.employees;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Minimal latency recorder for the performance suite: collects samples in nanoseconds and reports percentiles.
+ */
+class LatencyStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile Percentile in the range [0, 100].
+     * @return Latency at the percentile, in microseconds.
+     */
+    synchronized long percentileMicros(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.ceil(percentile / 100.0 * count) - 1);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * @param label        Name of the scenario.
+     * @param elapsedNanos Wall clock duration of the whole run.
+     * @return One line summary of throughput and latency percentiles.
+     */
+    String summary(String label,
+                   long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        return format("%-28s %8d ops %10.1f ops/s   p50 %8d us   p90 %8d us   p99 %8d us   max %8d us",
+                      label,
+                      count(),
+                      count() / seconds,
+                      percentileMicros(50),
+                      percentileMicros(90),
+                      percentileMicros(99),
+                      percentileMicros(100));
+    }
+
+}
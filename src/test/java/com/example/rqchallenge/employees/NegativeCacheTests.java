@@ -0,0 +1,90 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegativeCacheTests {
+
+    private static List<Integer> ids(int from,
+                                     int to) {
+        return IntStream.rangeClosed(from, to)
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
+    @Test
+    void recordedMissesExpire() throws InterruptedException {
+        NegativeCache cache = new NegativeCache(100, 60000, 10, 0.01);
+        assertFalse(cache.isKnownMissing(7));
+        cache.recordMiss(7);
+        assertTrue(cache.isKnownMissing(7));
+        assertEquals(1, cache.getRecentHits());
+
+        Thread.sleep(150);
+        assertFalse(cache.isKnownMissing(7));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void recordedMissesAreBounded() throws InterruptedException {
+        NegativeCache cache = new NegativeCache(100, 60000, 2, 0.01);
+        cache.recordMiss(1);
+        cache.recordMiss(2);
+        cache.recordMiss(3);
+        assertFalse(cache.isKnownMissing(3));
+        assertEquals(2, cache.size());
+
+        // once the recorded ones expire, there is room again
+        Thread.sleep(150);
+        cache.recordMiss(3);
+        assertTrue(cache.isKnownMissing(3));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void rosterProvesAbsenceUntilItExpires() throws InterruptedException {
+        NegativeCache cache = new NegativeCache(60000, 100, 10, 0.01);
+        cache.recordMiss(5);
+        cache.rebuild(ids(1, 100));
+
+        // the roster lists 5 again, which clears the recorded miss
+        assertFalse(cache.isKnownMissing(5));
+        assertFalse(cache.isKnownMissing(50));
+        assertTrue(cache.isKnownMissing(101));
+        assertEquals(1, cache.getRosterHits());
+
+        Thread.sleep(150);
+        assertFalse(cache.isKnownMissing(101));
+    }
+
+    @Test
+    void rebuildReplacesTheRoster() {
+        NegativeCache cache = new NegativeCache(60000, 60000, 10, 0.01);
+        cache.rebuild(ids(1, 100));
+        cache.rebuild(ids(101, 200));
+        assertTrue(cache.isKnownMissing(1));
+        assertFalse(cache.isKnownMissing(150));
+    }
+
+    @Test
+    void invalidateForgetsBothSources() {
+        NegativeCache cache = new NegativeCache(60000, 60000, 10, 0.01);
+        cache.rebuild(ids(1, 100));
+        cache.recordMiss(101);
+        assertTrue(cache.isKnownMissing(101));
+        assertTrue(cache.isKnownMissing(102));
+
+        cache.invalidate(101);
+        cache.invalidate(102);
+        assertFalse(cache.isKnownMissing(101));
+        assertFalse(cache.isKnownMissing(102));
+    }
+
+}
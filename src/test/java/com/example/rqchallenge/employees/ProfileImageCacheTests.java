@@ -0,0 +1,280 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The cache against an in-process image host serving 1000-byte images, slowly for names starting with "slow", and
+ * the image host of an "acme" tenant serving 500-byte images at the same paths.
+ */
+class ProfileImageCacheTests {
+
+    private static final byte[] IMAGE = new byte[1000];
+    private static final byte[] ACME_IMAGE = new byte[500];
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private DisposableServer host;
+    private DisposableServer acmeHost;
+    private Path directory;
+    private ProfileImageCache cache;
+
+    private ProfileImageCache cache() throws IOException {
+        TenantProperties.TenantConfig acme = new TenantProperties.TenantConfig();
+        acme.setBaseUri("http://127.0.0.1:" + acmeHost.port() + "/api/v1");
+        acme.setImageBaseUri("http://127.0.0.1:" + acmeHost.port());
+        TenantProperties tenantProperties = new TenantProperties();
+        tenantProperties.setTenants(Map.of("acme", acme));
+        ProfileImageCache cache = new ProfileImageCache(WebClient.builder(),
+                                                        "http://127.0.0.1:" + host.port(),
+                                                        tenantProperties,
+                                                        Schedulers.boundedElastic());
+        ReflectionTestUtils.setField(cache, "cacheDir", directory.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 2500L);
+        ReflectionTestUtils.setField(cache, "evictDelayMs", 200L);
+        ReflectionTestUtils.setField(cache, "unavailableMessage", "unavailable");
+        cache.init();
+        return cache;
+    }
+
+    @BeforeEach
+    void createCache() throws IOException {
+        host = HttpServer.create()
+                         .host("127.0.0.1")
+                         .port(0)
+                         .route(routes -> routes.get("/img/{name}", (request, response) -> {
+                                                    String name = request.param("name");
+                                                    calls.computeIfAbsent(name, k -> new AtomicInteger())
+                                                         .incrementAndGet();
+                                                    Duration delay = Duration.ofMillis(name.startsWith("slow") ? 200 : 0);
+                                                    return Mono.delay(delay)
+                                                               .then(response.header("Content-Type", "image/png")
+                                                                             .sendByteArray(Mono.just(IMAGE))
+                                                                             .then());
+                                                })
+                                                .get("/broken.png", (request, response) -> response.status(500)
+                                                                                                  .send()))
+                         .bindNow();
+        acmeHost = HttpServer.create()
+                             .host("127.0.0.1")
+                             .port(0)
+                             .route(routes -> routes.get("/img/{name}", (request, response) -> {
+                                 calls.computeIfAbsent("acme/" + request.param("name"), k -> new AtomicInteger())
+                                      .incrementAndGet();
+                                 return response.header("Content-Type", "image/png")
+                                                .sendByteArray(Mono.just(ACME_IMAGE));
+                             }))
+                             .bindNow();
+        directory = Files.createTempDirectory("images");
+        cache = cache();
+    }
+
+    @AfterEach
+    void stopHost() {
+        host.disposeNow();
+        acmeHost.disposeNow();
+    }
+
+    private int calls(String name) {
+        AtomicInteger count = calls.get(name);
+        return count == null ? 0 : count.get();
+    }
+
+    private CachedImage get(String imagePath) {
+        return cache.get(imagePath)
+                    .block(Duration.ofSeconds(10));
+    }
+
+    private static String key(String imagePath) {
+        return ProfileImageCache.key(TenantRegistry.DEFAULT_TENANT, imagePath);
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName()
+                                         .toString())
+                        .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() {
+        List<CachedImage> images = Flux.range(0, 8)
+                                       .flatMap(i -> cache.get("/img/slow.png"))
+                                       .collectList()
+                                       .block(Duration.ofSeconds(10));
+        assertEquals(8, images.size());
+        images.forEach(image -> assertSame(images.get(0), image));
+        assertEquals(1, calls("slow.png"));
+
+        assertSame(images.get(0), get("/img/slow.png"));
+        assertEquals(1, calls("slow.png"));
+    }
+
+    @Test
+    void keysKeepOnlyPlainExtensions() {
+        assertTrue(key("/img/a.PNG").endsWith(".png"));
+        assertTrue(key("/img/a.png?size=large&as=.exe").endsWith(".png"));
+        // the tenant name, a dash and a UUID
+        assertEquals(44, key("/img/a?format=x.png").length());
+        assertEquals(44, key("/img.d/a").length());
+        assertNotEquals(key("/img/a.png?size=large"), key("/img/a.png?size=small"));
+    }
+
+    @Test
+    void tenantsHaveTheirOwnImageHostAndCache() throws IOException {
+        CachedImage image = get("/img/a.png");
+        CachedImage acmeImage = cache.get("/img/a.png")
+                                     .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, "acme"))
+                                     .block(Duration.ofSeconds(10));
+        assertEquals(IMAGE.length, image.getSize());
+        assertEquals(ACME_IMAGE.length, acmeImage.getSize());
+        assertNotEquals(image.getPath(), acmeImage.getPath());
+        assertTrue(acmeImage.getPath()
+                            .getFileName()
+                            .toString()
+                            .startsWith("acme-"));
+        assertEquals(1, calls("a.png"));
+        assertEquals(1, calls("acme/a.png"));
+
+        // both survive a restart under their own tenant
+        cache = cache();
+        assertEquals(image.getPath(), get("/img/a.png").getPath());
+        assertEquals(2, files().size());
+        Mono<CachedImage> unknown = cache.get("/img/a.png")
+                                         .contextWrite(context -> context.put(TenantRegistry.CONTEXT_KEY, "other"));
+        assertThrows(UnknownTenantException.class, () -> unknown.block(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void upstreamErrorsAreServiceExceptions() throws IOException {
+        assertThrows(ServiceException.class, () -> get("/broken.png"));
+        assertThrows(IdNotFoundException.class, () -> get("/missing/a.png"));
+        assertTrue(files().isEmpty());
+    }
+
+    @Test
+    void pathsNamingAnotherHostAreRejected() {
+        String hostAndPort = "127.0.0.1:" + host.port();
+        for (String imagePath : List.of("//" + hostAndPort + "/img/a.png",
+                                        "/\\" + hostAndPort + "/img/a.png",
+                                        "http://" + hostAndPort + "/img/a.png",
+                                        "/img/../img/a.png")) {
+            Mono<CachedImage> image = cache.get(imagePath);
+            assertThrows(IdNotFoundException.class, () -> image.block(Duration.ofSeconds(10)), imagePath);
+        }
+        assertEquals(0, calls("a.png"));
+    }
+
+    @Test
+    void bracesAreNotUriTemplateVariables() {
+        assertEquals(IMAGE.length, get("/img/{x}.png").getSize());
+        assertEquals(1, calls.values()
+                             .stream()
+                             .mapToInt(AtomicInteger::get)
+                             .sum());
+    }
+
+    @Test
+    void evictedFilesOutliveTheirEntryForAWhile() throws IOException, InterruptedException {
+        CachedImage a = get("/img/a.png");
+        Thread.sleep(5);
+        get("/img/b.png");
+        Thread.sleep(5);
+        // over the budget: the least recently used image goes, down to 90% of the budget
+        get("/img/c.png");
+        assertEquals(2, files().stream()
+                               .filter(name -> !name.equals(a.getPath()
+                                                             .getFileName()
+                                                             .toString()))
+                               .count());
+        assertTrue(Files.exists(a.getPath()));
+
+        CachedImage refetched = get("/img/a.png");
+        assertEquals(2, calls("a.png"));
+        assertNotEquals(a.getPath(), refetched.getPath());
+        Thread.sleep(1000);
+        assertFalse(Files.exists(a.getPath()));
+        assertTrue(Files.exists(refetched.getPath()));
+    }
+
+    @Test
+    void restartKeepsTheCachedImages() throws IOException {
+        CachedImage a = get("/img/a.png");
+        cache = cache();
+        assertEquals(a.getPath(), get("/img/a.png").getPath());
+        assertEquals(1, calls("a.png"));
+    }
+
+    @Test
+    void controllerAnswersConditionalAndRangeRequests() {
+        IEmployeeService service = mock(IEmployeeService.class);
+        when(service.getEmployeeById(1)).thenReturn(Mono.just(Optional.of(new Employee(1, "Ann", 50000, 30, "/img/a.png"))));
+        ProfileImageController controller = new ProfileImageController(service, cache);
+        ReflectionTestUtils.setField(controller, "maxAgeSeconds", 3600L);
+        WebTestClient client = WebTestClient.bindToController(controller)
+                                            .build();
+
+        String eTag = client.get()
+                            .uri("/image/1")
+                            .exchange()
+                            .expectStatus()
+                            .isOk()
+                            .expectHeader()
+                            .contentType("image/png")
+                            .expectBody(byte[].class)
+                            .value(body -> assertEquals(IMAGE.length, body.length))
+                            .returnResult()
+                            .getResponseHeaders()
+                            .getETag();
+        client.get()
+              .uri("/image/1")
+              .header(HttpHeaders.IF_NONE_MATCH, eTag)
+              .exchange()
+              .expectStatus()
+              .isNotModified();
+        client.get()
+              .uri("/image/1")
+              .header(HttpHeaders.RANGE, "bytes=0-9")
+              .exchange()
+              .expectStatus()
+              .isEqualTo(HttpStatus.PARTIAL_CONTENT)
+              .expectHeader()
+              .valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 0-9/" + IMAGE.length)
+              .expectBody(byte[].class)
+              .value(body -> assertEquals(10, body.length));
+        assertEquals(1, calls("a.png"));
+    }
+
+}
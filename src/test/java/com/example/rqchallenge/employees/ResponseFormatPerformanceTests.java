@@ -0,0 +1,85 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the response encodings on offer for a roster-sized array of employees: encode and decode cost per
+ * response, and payload size with and without gzip.
+ * Run with {@code ./gradlew performanceTest --tests '*ResponseFormatPerformanceTests'}; the roster size can be set
+ * with {@code -Ploadtest.roster-size=...}.
+ */
+@Tag("performance")
+class ResponseFormatPerformanceTests {
+
+    private static final int ROSTER_SIZE = Integer.getInteger("loadtest.roster-size", 1000);
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+    private static final TypeReference<List<Employee>> EMPLOYEE_LIST = new TypeReference<>() {
+    };
+
+    private static List<Employee> roster() {
+        List<Employee> roster = new ArrayList<>(ROSTER_SIZE);
+        for (int id = 1; id <= ROSTER_SIZE; id++) {
+            roster.add(new Employee(id, "Employee " + id, 20000 + (id * 7919) % 300000, 18 + id % 50, ""));
+        }
+        return roster;
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    private static void compare(String format,
+                                ObjectMapper mapper,
+                                List<Employee> roster) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(roster), EMPLOYEE_LIST);
+        }
+        LatencyStats encode = new LatencyStats();
+        LatencyStats decode = new LatencyStats();
+        byte[] payload = null;
+        long encodeStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            payload = mapper.writeValueAsBytes(roster);
+            encode.record(System.nanoTime() - start);
+        }
+        long encodeElapsed = System.nanoTime() - encodeStart;
+        long decodeStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            List<Employee> decoded = mapper.readValue(payload, EMPLOYEE_LIST);
+            decode.record(System.nanoTime() - start);
+            assertEquals(ROSTER_SIZE, decoded.size());
+        }
+        long decodeElapsed = System.nanoTime() - decodeStart;
+        System.out.println(encode.summary(format + " encode", encodeElapsed));
+        System.out.println(decode.summary(format + " decode", decodeElapsed));
+        System.out.printf("%-28s %8d bytes   gzip %8d bytes%n", format + " payload", payload.length, gzip(payload).length);
+    }
+
+    @Test
+    void encodeCostAndPayloadSizeByFormat() throws IOException {
+        List<Employee> roster = roster();
+        System.out.printf("roster of %d employees, %d iterations per format%n", ROSTER_SIZE, ITERATIONS);
+        compare("json", new ObjectMapper(), roster);
+        compare("smile", new ObjectMapper(new SmileFactory()), roster);
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTests {
+
+    private static final String RETRY_MESSAGE = "retries exhausted";
+
+    private static RetryPolicy policy() {
+        MockEnvironment environment = new MockEnvironment().withProperty("employee.retry.get.max", "3")
+                                                           .withProperty("employee.retry.get.duration.ms", "1")
+                                                           .withProperty("employee.retry.change.max", "2")
+                                                           .withProperty("employee.retry.change.duration.ms", "1");
+        RetryPolicy policy = new RetryPolicy(environment, new SimpleMeterRegistry(), 0.1, 10);
+        ReflectionTestUtils.setField(policy, "minSuccessRate", 0.1);
+        ReflectionTestUtils.setField(policy, "maxBackoffMs", 30000L);
+        ReflectionTestUtils.setField(policy, "retryMessage", RETRY_MESSAGE);
+        return policy;
+    }
+
+    /**
+     * @return Call failing its first {@code failures} attempts with the given exception, then answering "ok".
+     */
+    private static Mono<String> call(AtomicInteger attempts,
+                                     int failures,
+                                     ServiceException failure) {
+        return Mono.defer(() -> attempts.incrementAndGet() <= failures ? Mono.error(failure) : Mono.just("ok"));
+    }
+
+    private static Optional<Duration> retryAfter(String header) {
+        ClientResponse response = ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                                                .header(HttpHeaders.RETRY_AFTER, header)
+                                                .build();
+        return UpstreamThrottledException.from("throttled", response)
+                                         .getRetryAfter();
+    }
+
+    @Test
+    void retryAfterIsParsedAsSecondsOrHttpDate() {
+        assertEquals(Optional.of(Duration.ofSeconds(7)), retryAfter("7"));
+        assertEquals(Optional.of(Duration.ZERO), retryAfter("-5"));
+        assertEquals(Optional.empty(), retryAfter("soon"));
+        assertEquals(Optional.empty(), retryAfter(""));
+        assertEquals(Optional.empty(), UpstreamThrottledException.from("throttled",
+                                                                       ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                                                                                     .build())
+                                                                 .getRetryAfter());
+
+        Duration future = retryAfter(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()
+                                                                                              .plusSeconds(30))).orElseThrow();
+        assertTrue(future.compareTo(Duration.ofSeconds(28)) > 0 && future.compareTo(Duration.ofSeconds(30)) <= 0,
+                   future.toString());
+        assertEquals(Optional.of(Duration.ZERO),
+                     retryAfter(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()
+                                                                                         .minusMinutes(1))));
+    }
+
+    @Test
+    void budgetIsCappedAndRefusesPartialRetries() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+        assertEquals(2.0, budget.available());
+        budget.deposit();
+        assertEquals(2.0, budget.available());
+
+        assertTrue(budget.withdraw());
+        assertTrue(budget.withdraw());
+        assertFalse(budget.withdraw());
+
+        budget.deposit();
+        assertEquals(0.5, budget.available());
+        assertFalse(budget.withdraw());
+        budget.deposit();
+        assertTrue(budget.withdraw());
+        assertEquals(0.0, budget.available());
+    }
+
+    @Test
+    void successRateFollowsRecentOutcomes() {
+        RetryBudget budget = new RetryBudget(0.1, 10);
+        assertEquals(1.0, budget.successRate());
+        budget.recordOutcome(false);
+        assertEquals(0.98, budget.successRate(), 1e-9);
+        for (int i = 0; i < 200; i++) {
+            budget.recordOutcome(false);
+        }
+        assertTrue(budget.successRate() < 0.05, String.valueOf(budget.successRate()));
+        for (int i = 0; i < 200; i++) {
+            budget.recordOutcome(true);
+        }
+        assertTrue(budget.successRate() > 0.95, String.valueOf(budget.successRate()));
+    }
+
+    @Test
+    void getIsRetriedOnServerErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryBudget budget = new RetryBudget(0.1, 10);
+        String result = call(attempts, 2, new ServiceException("unavailable"))
+                .transform(policy().retry(budget, "get", Optional.empty()))
+                .block(Duration.ofSeconds(10));
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(8.0, budget.available(), 1e-9);
+    }
+
+    @Test
+    void createAndDeleteAreNotRetriedOnServerErrors() {
+        for (String operation : new String[]{"create", "delete"}) {
+            AtomicInteger attempts = new AtomicInteger();
+            ServiceException failure = new ServiceException("unavailable");
+            ServiceException thrown = assertThrows(ServiceException.class,
+                                                   () -> call(attempts, 1, failure)
+                                                           .transform(policy().retry(new RetryBudget(0.1, 10),
+                                                                                     operation,
+                                                                                     Optional.empty()))
+                                                           .block(Duration.ofSeconds(10)));
+            assertSame(failure, thrown);
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    void createIsRetriedWhenThrottled() {
+        AtomicInteger attempts = new AtomicInteger();
+        String result = call(attempts, 1, new UpstreamThrottledException("throttled", Duration.ofMillis(1)))
+                .transform(policy().retry(new RetryBudget(0.1, 10), "create", Optional.empty()))
+                .block(Duration.ofSeconds(10));
+        assertEquals("ok", result);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void exhaustedThrottlingStaysThrottled() {
+        AtomicInteger attempts = new AtomicInteger();
+        UpstreamThrottledException thrown = assertThrows(UpstreamThrottledException.class,
+                                                         () -> call(attempts, 10, new UpstreamThrottledException("throttled",
+                                                                                                                 Duration.ofMillis(5)))
+                                                                 .transform(policy().retry(new RetryBudget(0.1, 10),
+                                                                                           "create",
+                                                                                           Optional.empty()))
+                                                                 .block(Duration.ofSeconds(10)));
+        assertEquals(RETRY_MESSAGE, thrown.getMessage());
+        assertEquals(Optional.of(Duration.ofMillis(5)), thrown.getRetryAfter());
+        assertEquals(3, attempts.get());
+
+        ServiceException exhausted = assertThrows(ServiceException.class,
+                                                  () -> call(new AtomicInteger(), 10, new ServiceException("unavailable"))
+                                                          .transform(policy().retry(new RetryBudget(0.1, 10),
+                                                                                    "get",
+                                                                                    Optional.empty()))
+                                                          .block(Duration.ofSeconds(10)));
+        assertFalse(exhausted instanceof UpstreamThrottledException);
+        assertEquals(RETRY_MESSAGE, exhausted.getMessage());
+    }
+
+    @Test
+    void emptyBudgetRefusesRetriesOfItsTenantOnly() {
+        RetryPolicy policy = policy();
+        RetryBudget exhausted = new RetryBudget(0, 1);
+        RetryBudget healthy = new RetryBudget(0, 1);
+
+        AtomicInteger attempts = new AtomicInteger();
+        ServiceException failure = new ServiceException("unavailable");
+        assertSame(failure, assertThrows(ServiceException.class,
+                                         () -> call(attempts, 10, failure)
+                                                 .transform(policy.retry(exhausted, "get", Optional.empty()))
+                                                 .block(Duration.ofSeconds(10))));
+        // one banked retry, then the budget refuses and the last failure is returned as is
+        assertEquals(2, attempts.get());
+
+        AtomicInteger other = new AtomicInteger();
+        assertEquals("ok", call(other, 1, failure)
+                .transform(policy.retry(healthy, "get", Optional.empty()))
+                .block(Duration.ofSeconds(10)));
+        assertEquals(2, other.get());
+    }
+
+    @Test
+    void lowSuccessRateStretchesBackoff() {
+        MockEnvironment environment = new MockEnvironment().withProperty("employee.retry.get.duration.ms", "20");
+        RetryPolicy policy = new RetryPolicy(environment, new SimpleMeterRegistry(), 0.1, 10);
+        ReflectionTestUtils.setField(policy, "minSuccessRate", 0.1);
+        ReflectionTestUtils.setField(policy, "maxBackoffMs", 30000L);
+        RetryBudget failing = new RetryBudget(0.1, 10);
+        for (int i = 0; i < 500; i++) {
+            failing.recordOutcome(false);
+        }
+
+        long start = System.nanoTime();
+        call(new AtomicInteger(), 1, new ServiceException("unavailable"))
+                .transform(policy.retry(failing, "get", Optional.empty()))
+                .block(Duration.ofSeconds(10));
+        long elapsedMs = (System.nanoTime() - start) / 1000000;
+        // 20 ms nominal, less at most 35% jitter, stretched tenfold at the minimum success rate
+        assertTrue(elapsedMs >= 130, elapsedMs + " ms");
+    }
+
+}
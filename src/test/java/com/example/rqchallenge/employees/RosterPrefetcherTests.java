@@ -0,0 +1,164 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A lease taken by the test stands in for another replica holding it.
+ */
+class RosterPrefetcherTests {
+
+    private static final long THROTTLE_MS = 60000;
+    private static final List<Employee> ROSTER = List.of(new Employee(1, "Ann", 50000, 30, null),
+                                                         new Employee(2, "Bob", 60000, 40, null));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final IEmployeeService service = mock(IEmployeeService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Path directory;
+    private FileLeaseStore leaseStore;
+    private RosterPrefetcher prefetcher;
+    private Tenant tenant;
+
+    @BeforeEach
+    void createPrefetcher() throws IOException {
+        directory = Files.createTempDirectory("leases");
+        leaseStore = new FileLeaseStore(directory);
+        prefetcher = new RosterPrefetcher(service,
+                                          mock(TenantRegistry.class),
+                                          leaseStore,
+                                          mapper,
+                                          Schedulers.boundedElastic(),
+                                          meterRegistry);
+        ReflectionTestUtils.setField(prefetcher, "intervalRatio", 0.9);
+        ReflectionTestUtils.setField(prefetcher, "minBackoffMs", 30000L);
+        ReflectionTestUtils.setField(prefetcher, "maxBackoffMs", 1800000L);
+        tenant = tenant("default", "http://localhost:8080/api/v1");
+        when(service.loadAllEmployees(anyList(), anyLong())).thenReturn(Mono.empty());
+    }
+
+    private static Tenant tenant(String name,
+                                 String baseUri) {
+        return new Tenant(name, baseUri, null, null, null, null, new FluxCache<>(THROTTLE_MS, 0, 4), null);
+    }
+
+    private void publish(long ageMs) throws IOException {
+        String lease = RosterPrefetcher.leaseName(tenant);
+        leaseStore.publish(lease, mapper.writeValueAsBytes(ROSTER));
+        Files.setLastModifiedTime(directory.resolve(lease + ".snapshot"),
+                                  FileTime.fromMillis(System.currentTimeMillis() - ageMs));
+    }
+
+    private double outcomes(String outcome) {
+        return meterRegistry.counter("employee.prefetch", "tenant", tenant.getName(), "outcome", outcome)
+                            .count();
+    }
+
+    private void refreshElsewhereHeld(RosterPrefetcher.Schedule schedule) {
+        Optional<LeaseStore.Lease> elsewhere = leaseStore.tryAcquire(RosterPrefetcher.leaseName(tenant));
+        assertTrue(elsewhere.isPresent());
+        try {
+            prefetcher.refresh(schedule)
+                      .block(Duration.ofSeconds(10));
+        } finally {
+            elsewhere.get()
+                     .close();
+        }
+    }
+
+    @Test
+    void staleSnapshotIsNotAdoptedAtStartup() throws IOException {
+        // published before the refresh interval (54 s) by a replica which has since stopped
+        publish(2 * THROTTLE_MS);
+        refreshElsewhereHeld(prefetcher.schedule(tenant));
+
+        assertEquals(1.0, outcomes("stale"));
+        verify(service, never()).loadAllEmployees(anyList(), anyLong());
+    }
+
+    @Test
+    void recentSnapshotIsAdoptedAsOfItsPublication() throws IOException {
+        publish(10000);
+        long publishedAt = leaseStore.latest(RosterPrefetcher.leaseName(tenant))
+                                     .orElseThrow()
+                                     .getPublishedAt();
+        RosterPrefetcher.Schedule schedule = prefetcher.schedule(tenant);
+
+        refreshElsewhereHeld(schedule);
+        assertEquals(1.0, outcomes("adopted"));
+        verify(service).loadAllEmployees(anyList(), eq(publishedAt));
+
+        // the same snapshot is not loaded twice
+        refreshElsewhereHeld(schedule);
+        assertEquals(1.0, outcomes("skipped"));
+    }
+
+    @Test
+    void leaseHolderFetchesAndPublishesWithoutRecentSnapshot() throws IOException {
+        publish(40000);
+        when(service.refreshAllEmployees()).thenReturn(Mono.just(ROSTER));
+
+        prefetcher.refresh(prefetcher.schedule(tenant))
+                  .block(Duration.ofSeconds(10));
+        assertEquals(1.0, outcomes("fetched"));
+        LeaseStore.Snapshot published = leaseStore.latest(RosterPrefetcher.leaseName(tenant))
+                                                  .orElseThrow();
+        assertTrue(published.getPublishedAt() > System.currentTimeMillis() - 10000);
+        verify(service, never()).loadAllEmployees(any(), anyLong());
+    }
+
+    @Test
+    void leasesAreNamespacedByBaseUri() {
+        assertEquals(RosterPrefetcher.leaseName(tenant("default", "http://a.example/api")),
+                     RosterPrefetcher.leaseName(tenant("default", "http://a.example/api")));
+        assertNotEquals(RosterPrefetcher.leaseName(tenant("default", "http://a.example/api")),
+                        RosterPrefetcher.leaseName(tenant("default", "http://b.example/api")));
+        assertNotEquals(RosterPrefetcher.leaseName(tenant("default", "http://a.example/api")),
+                        RosterPrefetcher.leaseName(tenant("other", "http://a.example/api")));
+    }
+
+    private static FluxCache<Integer, Employee> loaded(long loadedAt) {
+        FluxCache<Integer, Employee> cache = new FluxCache<>(1000, 0, 4);
+        cache.cacheDownstreamBulk(Mono.just(ROSTER), Employee::getId)
+             .block();
+        cache.renewThrottle(loadedAt);
+        return cache;
+    }
+
+    @Test
+    void adoptedRosterIsOnlyFreshForTheRestOfItsThrottleTime() throws InterruptedException {
+        assertTrue(loaded(System.currentTimeMillis() - 500).cacheUpstreamBulk()
+                                                           .isPresent());
+        // loaded long enough ago that its throttle already ran out, so a request triggers a fresh load
+        FluxCache<Integer, Employee> stale = loaded(System.currentTimeMillis() - 5000);
+        Thread.sleep(5);
+        assertTrue(stale.cacheUpstreamBulk()
+                        .isEmpty());
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.rqchallenge.employees;
+
+import com.example.rqchallenge.employees.UpstreamScheduler.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * An EmployeeService wired by hand, without a Spring context, to a single tenant backed by a {@link StubUpstream},
+ * with the service's default settings.
+ */
+class ServiceHarness {
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final RetryPolicy retryPolicy;
+    final Tenant tenant;
+    final EmployeeService service;
+
+    /**
+     * @param upstream     Back-end of the tenant.
+     * @param throttleTime Cache throttle time (in ms) of the tenant.
+     */
+    ServiceHarness(StubUpstream upstream,
+                   long throttleTime) {
+        retryPolicy = new RetryPolicy(new MockEnvironment(), meterRegistry, 0.1, 10);
+        ReflectionTestUtils.setField(retryPolicy, "minSuccessRate", 0.1);
+        ReflectionTestUtils.setField(retryPolicy, "maxBackoffMs", 30000L);
+        ReflectionTestUtils.setField(retryPolicy, "retryMessage", "retries exhausted");
+        tenant = tenant(TenantRegistry.DEFAULT_TENANT, upstream, throttleTime, retryPolicy);
+        TenantRegistry tenants = mock(TenantRegistry.class);
+        when(tenants.resolve(any())).thenReturn(tenant);
+        service = service(tenants, retryPolicy, meterRegistry);
+    }
+
+    static Tenant tenant(String name,
+                         StubUpstream upstream,
+                         long throttleTime,
+                         RetryPolicy retryPolicy) {
+        return new Tenant(name,
+                          upstream.baseUri(),
+                          WebClient.create(upstream.baseUri()),
+                          new RateLimiter(10000, 10000),
+                          new UpstreamScheduler(8,
+                                                Map.of(),
+                                                Map.of(Lane.INTERACTIVE, 1000, Lane.BULK, 1000, Lane.BACKGROUND, 1000)),
+                          retryPolicy.newBudget(),
+                          new FluxCache<>(throttleTime, 0, 4),
+                          new NegativeCache(60000, 60000, 1000, 0.01));
+    }
+
+    static EmployeeService service(TenantRegistry tenants,
+                                   RetryPolicy retryPolicy,
+                                   SimpleMeterRegistry meterRegistry) {
+        EmployeeService service = new EmployeeService(tenants, retryPolicy, meterRegistry);
+        ReflectionTestUtils.setField(service, "batchBulkMissRatio", 0.5);
+        ReflectionTestUtils.setField(service, "batchConcurrency", 8);
+        ReflectionTestUtils.setField(service, "batchMaxIds", 1000);
+        ReflectionTestUtils.setField(service, "queryDefaultLimit", 100);
+        ReflectionTestUtils.setField(service, "queryMaxLimit", 1000);
+        ReflectionTestUtils.setField(service, "queryMinRebuildIntervalMs", 0L);
+        ReflectionTestUtils.setField(service, "unavailableMessage", "unavailable");
+        return service;
+    }
+
+}
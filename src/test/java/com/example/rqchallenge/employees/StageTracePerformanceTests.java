@@ -0,0 +1,121 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stage breakdown of {@code GET /{id}}, and the throughput cost of tracing every request compared with the
+ * production default of a small sample.
+ */
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "employee.rate-limit.permits-per-second=10000",
+                "employee.rate-limit.burst=10000",
+                "employee.trace.debug-header-enabled=true",
+                "employee.warm-up.enabled=false"
+        })
+class StageTracePerformanceTests {
+
+    private static final int ROSTER_SIZE = 500;
+    private static final int REQUESTS = 20000;
+    private static final int CONCURRENCY = 64;
+    private static final StubUpstream upstream = StubUpstream.builder()
+                                                             .rosterSize(ROSTER_SIZE)
+                                                             .latency(StubUpstream.Latency.fixed(20))
+                                                             .build();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("employee.base-uri", upstream::baseUri);
+        registry.add("employee.async.journal-path", () -> {
+            try {
+                return Files.createTempFile("stage-trace", ".journal")
+                            .toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    private double requestsPerSecond(WebClient client,
+                                     boolean debug) {
+        long start = System.nanoTime();
+        Flux.range(0, REQUESTS)
+            .flatMap(i -> client.get()
+                                .uri("/" + (1 + i % ROSTER_SIZE))
+                                .headers(headers -> {
+                                    if (debug) {
+                                        headers.add(StageTraceWebFilter.DEBUG_HEADER, "true");
+                                    }
+                                })
+                                .retrieve()
+                                .toBodilessEntity(), CONCURRENCY)
+            .then()
+            .block(Duration.ofMinutes(2));
+        return REQUESTS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    @Test
+    void stageBreakdownAndOverhead() {
+        WebClient client = WebClient.create("http://127.0.0.1:" + port);
+        ResponseEntity<Void> miss = client.get()
+                                          .uri("/" + (ROSTER_SIZE + 1))
+                                          .header(StageTraceWebFilter.DEBUG_HEADER, "true")
+                                          .exchangeToMono(ClientResponse::toBodilessEntity)
+                                          .block(Duration.ofSeconds(10));
+        ResponseEntity<Void> hit = client.get()
+                                         .uri("/1")
+                                         .retrieve()
+                                         .toBodilessEntity()
+                                         .then(client.get()
+                                                     .uri("/1")
+                                                     .header(StageTraceWebFilter.DEBUG_HEADER, "true")
+                                                     .retrieve()
+                                                     .toBodilessEntity())
+                                         .block(Duration.ofSeconds(10));
+        assertNotNull(miss);
+        assertNotNull(hit);
+        String missTiming = miss.getHeaders()
+                                .getFirst(StageTraceWebFilter.SERVER_TIMING_HEADER);
+        System.out.println("cache miss: " + missTiming);
+        System.out.println("cache hit: " + hit.getHeaders()
+                                              .getFirst(StageTraceWebFilter.SERVER_TIMING_HEADER));
+        assertNotNull(missTiming);
+        assertTrue(missTiming.contains("upstream;dur="), missTiming);
+
+        // first pass warms up the JIT and the cache
+        for (int pass = 0; pass < 2; pass++) {
+            double sampled = requestsPerSecond(client, false);
+            double traced = requestsPerSecond(client, true);
+            System.out.printf("pass %d: sampled %.0f req/s, every request traced %.0f req/s (%.1f%% overhead)%n",
+                              pass, sampled, traced, 100 * (sampled - traced) / sampled);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.rqchallenge.employees;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StageTraceWebFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * A handler spending a little time in the "service" stage, and within it in the "cache" stage.
+     */
+    private static final WebFilterChain CHAIN = exchange -> Mono.delay(Duration.ofMillis(5))
+                                                                .then()
+                                                                .transform(StageTrace.stage("cache"))
+                                                                .transform(StageTrace.stage("service"));
+
+    private StageTraceWebFilter filter(boolean debugHeaderEnabled) {
+        StageTraceExporter exporter = new StageTraceExporter(meterRegistry);
+        ReflectionTestUtils.setField(exporter, "retained", 100);
+        StageTraceWebFilter filter = new StageTraceWebFilter(exporter);
+        ReflectionTestUtils.setField(filter, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(filter, "debugHeaderEnabled", debugHeaderEnabled);
+        return filter;
+    }
+
+    private static HttpHeaders debugRequest(StageTraceWebFilter filter) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/1")
+                                                                                         .header(StageTraceWebFilter.DEBUG_HEADER, "true"));
+        filter.filter(exchange, CHAIN)
+              .block(Duration.ofSeconds(10));
+        exchange.getResponse()
+                .setComplete()
+                .block(Duration.ofSeconds(10));
+        return exchange.getResponse()
+                       .getHeaders();
+    }
+
+    @Test
+    void debugHeaderGetsTheStageBreakdown() {
+        HttpHeaders headers = debugRequest(filter(true));
+        String timing = headers.getFirst(StageTraceWebFilter.SERVER_TIMING_HEADER);
+        assertNotNull(timing);
+        assertTrue(timing.matches("(\\w+;dur=[0-9.]+, ){2}total;dur=[0-9.]+"), timing);
+        assertTrue(timing.contains("cache;dur=") && timing.contains("service;dur="), timing);
+        assertEquals(32, headers.getFirst(StageTraceWebFilter.DEBUG_HEADER)
+                                .length());
+        assertEquals(1, meterRegistry.get("employee.stage")
+                                     .tag("stage", "cache")
+                                     .timer()
+                                     .count());
+        assertEquals(1, meterRegistry.get("employee.stage")
+                                     .tag("stage", "service")
+                                     .timer()
+                                     .count());
+    }
+
+    @Test
+    void debugHeaderIsIgnoredUnlessEnabled() {
+        HttpHeaders headers = debugRequest(filter(false));
+        assertNull(headers.getFirst(StageTraceWebFilter.SERVER_TIMING_HEADER));
+        assertNull(headers.getFirst(StageTraceWebFilter.DEBUG_HEADER));
+        assertNull(meterRegistry.find("employee.stage")
+                                .timer());
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.example.rqchallenge.employees;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringPoolTests {
+
+    @Test
+    void equalValuesShareOneInstance() {
+        StringPool pool = new StringPool(4);
+        String first = new String("Tiger Nixon");
+        String second = new String("Tiger Nixon");
+        assertNotSame(first, second);
+
+        assertSame(first, pool.canonical(first));
+        assertSame(first, pool.canonical(second));
+        assertSame(first, pool.canonical(first));
+        assertNull(pool.canonical(null));
+
+        assertEquals(3, pool.getLookups());
+        assertEquals(2, pool.getHits());
+        assertEquals(2.0 / 3, pool.getHitRate(), 1e-9);
+        // only the duplicate counts as saved, not the pooled instance looked up again
+        assertEquals(24 + 32, pool.getBytesSaved());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void footprintCountsTwoBytesPerCharacterBeyondLatin1() {
+        // 24-byte String header plus a 16-byte array header and the characters, padded to 8 bytes
+        assertEquals(24 + 32, StringPool.footprint("Tiger Nixon"));
+        assertEquals(24 + 32, StringPool.footprint("Zo\u00eb M\u00fcller"));
+        assertEquals(24 + 40, StringPool.footprint("\u0141ukasz \u017bak"));
+        assertEquals(24 + 16, StringPool.footprint(""));
+    }
+
+    @Test
+    void refreshedRosterReusesCachedStrings() {
+        Employee cached = Employee.fromMapOutput(output(1, "Garrett Winters", "images/1.png"));
+        Employee refreshed = Employee.fromMapOutput(output(1, "Garrett Winters", "images/1.png"));
+        assertSame(cached.getName(), refreshed.getName());
+        assertSame(cached.getProfileImage(), refreshed.getProfileImage());
+        assertTrue(Employee.STRINGS.getBytesSaved() > 0);
+    }
+
+    @Test
+    void createdEmployeeSharesStringsWithTheRoster() {
+        Employee cached = Employee.fromMapOutput(output(2, "Ashton Cox", "images/2.png"));
+        Map<String, Object> created = new HashMap<>();
+        created.put("id", 3);
+        created.put("name", new String("Ashton Cox"));
+        created.put("salary", 86000);
+        created.put("age", 66);
+        created.put("profile_image", new String("images/2.png"));
+        Employee fromCreate = Employee.fromMapOutputCreate(created);
+        assertSame(cached.getName(), fromCreate.getName());
+        assertSame(cached.getProfileImage(), fromCreate.getProfileImage());
+    }
+
+    /**
+     * @return Back-end record as decoded, with fresh string instances.
+     */
+    private static Map<String, Object> output(int id,
+                                              String name,
+                                              String profileImage) {
+        Map<String, Object> output = new HashMap<>();
+        output.put("id", id);
+        output.put("employee_name", new String(name));
+        output.put("employee_salary", 320800);
+        output.put("employee_age", 61);
+        output.put("profile_image", new String(profileImage));
+        return output;
+    }
+
+}
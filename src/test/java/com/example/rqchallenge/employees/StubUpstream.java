@@ -0,0 +1,316 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * In-process stand-in for the back-end API, serving the /employees, /employee/{id}, /create and /delete/{id}
+ * endpoints from an in-memory roster over a real HTTP socket.
+ * Each response can be delayed by a {@link Latency} distribution, and the stub can answer 429 Too Many Requests in
+ * periodic bursts or at random, and 500 Internal Server Error at random, to mimic the production back-end.
+ */
+class StubUpstream implements AutoCloseable {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentSkipListMap<Integer, Map<String, Object>> roster = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId;
+    private final Map<String, AtomicLong> calls = new ConcurrentSkipListMap<>();
+    private final Latency latency;
+    private final long throttleBurstPeriodNanos;
+    private final long throttleBurstLengthNanos;
+    private final double throttleRate;
+    private volatile double failureRate;
+    private final long startNanos = System.nanoTime();
+    private final DisposableServer server;
+
+    StubUpstream(int rosterSize) {
+        this(builder().rosterSize(rosterSize));
+    }
+
+    private StubUpstream(Builder builder) {
+        for (int id = 1; id <= builder.rosterSize; id++) {
+            roster.put(id, employee(id, "Employee " + id, 20000 + (id * 7919) % 300000, 18 + id % 50));
+        }
+        this.nextId = new AtomicInteger(builder.rosterSize + 1);
+        this.latency = builder.latency;
+        this.throttleBurstPeriodNanos = builder.throttleBurstPeriod.toNanos();
+        this.throttleBurstLengthNanos = builder.throttleBurstLength.toNanos();
+        this.throttleRate = builder.throttleRate;
+        this.failureRate = builder.failureRate;
+        this.server = HttpServer.create()
+                                .host("127.0.0.1")
+                                .port(0)
+                                .route(routes -> routes.get("/employees", inject("employees", this::getAll))
+                                                       .get("/employee/{id}", inject("employee", this::getById))
+                                                       .post("/create", inject("create", this::create))
+                                                       .delete("/delete/{id}", inject("delete", this::delete)))
+                                .bindNow();
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    private static Map<String, Object> employee(int id,
+                                                String name,
+                                                int salary,
+                                                int age) {
+        Map<String, Object> employee = new LinkedHashMap<>();
+        employee.put("id", id);
+        employee.put("employee_name", name);
+        employee.put("employee_salary", salary);
+        employee.put("employee_age", age);
+        employee.put("profile_image", "");
+        return employee;
+    }
+
+    String baseUri() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /**
+     * @param endpoint One of "employees", "employee", "create" or "delete".
+     * @return Number of requests the endpoint has received.
+     */
+    long calls(String endpoint) {
+        AtomicLong count = calls.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @param outcome One of "ok", "throttled" or "failed".
+     * @return Number of responses with the outcome, across all endpoints.
+     */
+    long outcomes(String outcome) {
+        return calls("outcome:" + outcome);
+    }
+
+    /**
+     * Change the fraction of requests answered with 500, e.g. to let the back-end recover.
+     */
+    void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    private void count(String key) {
+        calls.computeIfAbsent(key, k -> new AtomicLong())
+             .incrementAndGet();
+    }
+
+    /**
+     * Wrap a handler with call counting, latency and fault injection.
+     */
+    private BiFunction<HttpServerRequest, HttpServerResponse, Mono<Void>> inject(String endpoint,
+                                                                              BiFunction<HttpServerRequest, HttpServerResponse, Mono<Void>> handler) {
+        return (request, response) -> {
+            count(endpoint);
+            return Mono.delay(latency.next())
+                       .then(Mono.defer(() -> {
+                           if (isThrottling()) {
+                               count("outcome:throttled");
+                               return response.status(HttpResponseStatus.TOO_MANY_REQUESTS)
+                                              .header("Retry-After", "1")
+                                              .send();
+                           }
+                           if (failureRate > 0 && ThreadLocalRandom.current()
+                                                                   .nextDouble() < failureRate) {
+                               count("outcome:failed");
+                               return response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR)
+                                              .send();
+                           }
+                           count("outcome:ok");
+                           return handler.apply(request, response);
+                       }));
+        };
+    }
+
+    private boolean isThrottling() {
+        if (throttleBurstPeriodNanos > 0
+                && (System.nanoTime() - startNanos) % throttleBurstPeriodNanos < throttleBurstLengthNanos) {
+            return true;
+        }
+        return throttleRate > 0 && ThreadLocalRandom.current()
+                                                    .nextDouble() < throttleRate;
+    }
+
+    Mono<Void> getAll(HttpServerRequest request,
+                      HttpServerResponse response) {
+        return ok(response, new ArrayList<>(roster.values()));
+    }
+
+    Mono<Void> getById(HttpServerRequest request,
+                       HttpServerResponse response) {
+        Map<String, Object> employee = roster.get(Integer.parseInt(request.param("id")));
+        if (employee == null) {
+            return response.status(HttpResponseStatus.NOT_FOUND)
+                           .send();
+        }
+        return ok(response, employee);
+    }
+
+    Mono<Void> create(HttpServerRequest request,
+                      HttpServerResponse response) {
+        return request.receive()
+                      .aggregate()
+                      .asString()
+                      .flatMap(body -> {
+                          Map<String, Object> input = read(body);
+                          int id = nextId.getAndIncrement();
+                          roster.put(id,
+                                     employee(id,
+                                              (String) input.get("name"),
+                                              Integer.parseInt(input.get("salary") + ""),
+                                              Integer.parseInt(input.get("age") + "")));
+                          Map<String, Object> created = new LinkedHashMap<>(input);
+                          created.put("id", id);
+                          return ok(response, created);
+                      });
+    }
+
+    Mono<Void> delete(HttpServerRequest request,
+                      HttpServerResponse response) {
+        roster.remove(Integer.parseInt(request.param("id")));
+        return ok(response, "successfully! deleted Record");
+    }
+
+    private Mono<Void> ok(HttpServerResponse response,
+                          Object data) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "success");
+        body.put("data", data);
+        return response.header("Content-Type", "application/json")
+                       .sendString(Mono.just(write(body)))
+                       .then();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> read(String json) {
+        try {
+            return mapper.readValue(json, Map.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static String write(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    /**
+     * Distribution of artificial response latency.
+     */
+    interface Latency {
+
+        Duration next();
+
+        static Latency none() {
+            return () -> Duration.ZERO;
+        }
+
+        static Latency fixed(long millis) {
+            Duration duration = Duration.ofMillis(millis);
+            return () -> duration;
+        }
+
+        static Latency uniform(long minMillis,
+                               long maxMillis) {
+            return () -> Duration.ofMillis(ThreadLocalRandom.current()
+                                                            .nextLong(minMillis, maxMillis + 1));
+        }
+
+        static Latency exponential(double meanMillis) {
+            return () -> Duration.ofMicros((long) (-Math.log(1 - ThreadLocalRandom.current()
+                                                                                   .nextDouble()) * meanMillis * 1000));
+        }
+
+        /**
+         * Long-tailed latency typical of a remote service.
+         *
+         * @param medianMillis Median latency.
+         * @param sigma        Shape; 0.5 gives a p99 of roughly 3x the median, 1.0 roughly 10x.
+         */
+        static Latency logNormal(double medianMillis,
+                                 double sigma) {
+            return () -> Duration.ofMicros((long) (medianMillis * 1000 * Math.exp(sigma * ThreadLocalRandom.current()
+                                                                                                         .nextGaussian())));
+        }
+
+    }
+
+    static class Builder {
+
+        private int rosterSize = 500;
+        private Latency latency = Latency.none();
+        private Duration throttleBurstPeriod = Duration.ZERO;
+        private Duration throttleBurstLength = Duration.ZERO;
+        private double throttleRate;
+        private double failureRate;
+
+        Builder rosterSize(int rosterSize) {
+            this.rosterSize = rosterSize;
+            return this;
+        }
+
+        Builder latency(Latency latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Answer every request with 429 for {@code length} at the start of each {@code period}.
+         */
+        Builder throttleBursts(Duration period,
+                               Duration length) {
+            this.throttleBurstPeriod = period;
+            this.throttleBurstLength = length;
+            return this;
+        }
+
+        /**
+         * Answer the given fraction of requests with 429, outside of any bursts.
+         */
+        Builder throttleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        /**
+         * Answer the given fraction of requests with 500.
+         */
+        Builder failureRate(double failureRate) {
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        StubUpstream build() {
+            return new StubUpstream(this);
+        }
+
+    }
+
+}
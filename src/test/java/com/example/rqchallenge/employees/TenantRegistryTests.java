@@ -0,0 +1,142 @@
+package com.example.rqchallenge.employees;
+
+import com.example.rqchallenge.employees.UpstreamScheduler.Lane;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A default tenant with a roster of 10 and an "acme" tenant with a roster of 8 and a cache budget of 5 employees.
+ */
+class TenantRegistryTests {
+
+    private final StubUpstream defaultUpstream = new StubUpstream(10);
+    private final StubUpstream acmeUpstream = new StubUpstream(8);
+    private final ServiceHarness harness = new ServiceHarness(defaultUpstream, 60000);
+
+    @AfterEach
+    void stopUpstreams() {
+        defaultUpstream.close();
+        acmeUpstream.close();
+    }
+
+    private TenantRegistry registry(String name) {
+        TenantProperties.TenantConfig config = new TenantProperties.TenantConfig();
+        config.setBaseUri(acmeUpstream.baseUri());
+        config.setMaxCacheEntries(5);
+        config.setPermitsPerSecond(10000);
+        config.setBurst(10000);
+        TenantProperties properties = new TenantProperties();
+        properties.setTenants(Map.of(name, config));
+        return new TenantRegistry(defaultUpstream.baseUri(),
+                                  WebClient.create(defaultUpstream.baseUri()),
+                                  new RateLimiter(10000, 10000),
+                                  new UpstreamScheduler(8, Map.of(), Map.of(Lane.INTERACTIVE, 1000, Lane.BULK, 1000)),
+                                  harness.retryPolicy,
+                                  new FluxCache<>(60000, 0, 4),
+                                  new NegativeCache(60000, 60000, 1000, 0.01),
+                                  properties,
+                                  WebClient.builder(),
+                                  new UpstreamRecorder("off",
+                                                       Paths.get("upstream-recording.ndjson.gz"),
+                                                       1.0,
+                                                       new ObjectMapper(),
+                                                       ExchangeStrategies.withDefaults(),
+                                                       Schedulers.boundedElastic()),
+                                  harness.meterRegistry);
+    }
+
+    private static int rosterSize(IEmployeeService service,
+                                  Context context) {
+        return service.getAllEmployees()
+                      .collectList()
+                      .contextWrite(context)
+                      .block(Duration.ofSeconds(10))
+                      .size();
+    }
+
+    @Test
+    void tenantIsResolvedFromTheContext() {
+        TenantRegistry registry = registry("acme");
+        assertEquals(TenantRegistry.DEFAULT_TENANT, registry.resolve(Context.empty())
+                                                            .getName());
+        assertEquals("acme", registry.resolve(Context.of(TenantRegistry.CONTEXT_KEY, "acme"))
+                                     .getName());
+        assertThrows(UnknownTenantException.class, () -> registry.resolve(Context.of(TenantRegistry.CONTEXT_KEY, "other")));
+    }
+
+    @Test
+    void defaultTenantNameIsReserved() {
+        assertThrows(IllegalStateException.class, () -> registry(TenantRegistry.DEFAULT_TENANT));
+    }
+
+    @Test
+    void tenantHeaderIsPutInTheContext() {
+        TenantWebFilter filter = new TenantWebFilter();
+        for (Map.Entry<String, String> header : Map.of(" acme ", "acme", " ", TenantRegistry.DEFAULT_TENANT)
+                                                   .entrySet()) {
+            AtomicReference<String> tenant = new AtomicReference<>();
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                                                                          .header(TenantWebFilter.TENANT_HEADER, header.getKey())),
+                          exchange -> Mono.deferContextual(context -> {
+                              tenant.set(TenantRegistry.tenantName(context));
+                              return Mono.empty();
+                          }))
+                  .block(Duration.ofSeconds(10));
+            assertEquals(header.getValue(), tenant.get());
+        }
+    }
+
+    @Test
+    void tenantsHaveSeparateCaches() {
+        TenantRegistry registry = registry("acme");
+        EmployeeService service = ServiceHarness.service(registry, harness.retryPolicy, harness.meterRegistry);
+        Context acme = Context.of(TenantRegistry.CONTEXT_KEY, "acme");
+
+        assertEquals(8, rosterSize(service, acme));
+        assertEquals(1, acmeUpstream.calls("employees"));
+        assertEquals(0, defaultUpstream.calls("employees"));
+        assertEquals(5, registry.get("acme")
+                                .getCache()
+                                .size());
+        assertEquals(0, registry.get(TenantRegistry.DEFAULT_TENANT)
+                                .getCache()
+                                .size());
+
+        assertEquals(10, rosterSize(service, Context.empty()));
+        assertEquals(10, rosterSize(service, Context.empty()));
+        assertEquals(1, defaultUpstream.calls("employees"));
+        assertEquals(10, registry.get(TenantRegistry.DEFAULT_TENANT)
+                                 .getCache()
+                                 .size());
+
+        // the acme cache holds only part of the roster within its budget, so it cannot answer a roster request
+        assertEquals(8, rosterSize(service, acme));
+        assertEquals(2, acmeUpstream.calls("employees"));
+    }
+
+    @Test
+    void unknownTenantFailsTheRequest() {
+        EmployeeService service = ServiceHarness.service(registry("acme"), harness.retryPolicy, harness.meterRegistry);
+        assertThrows(UnknownTenantException.class,
+                     () -> service.getAllEmployees()
+                                  .contextWrite(Context.of(TenantRegistry.CONTEXT_KEY, "other"))
+                                  .blockLast(Duration.ofSeconds(10)));
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.example.rqchallenge.employees;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records exchanges with a {@link StubUpstream}, then replays them with the stub shut down.
+ */
+class UpstreamRecorderTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static UpstreamRecorder recorder(String mode,
+                                             Path path,
+                                             double timeScale) {
+        return new UpstreamRecorder(mode,
+                                    path,
+                                    timeScale,
+                                    new ObjectMapper(),
+                                    ExchangeStrategies.withDefaults(),
+                                    Schedulers.boundedElastic());
+    }
+
+    private static WebClient client(UpstreamRecorder recorder,
+                                    String baseUri) {
+        return recorder.apply(TenantRegistry.DEFAULT_TENANT,
+                              WebClient.builder()
+                                       .baseUrl(baseUri))
+                       .build();
+    }
+
+    /**
+     * @return Status and body of a GET, as "status body".
+     */
+    private static String get(WebClient client,
+                              String uri) {
+        return client.get()
+                     .uri(uri)
+                     .exchangeToMono(response -> response.bodyToMono(String.class)
+                                                         .defaultIfEmpty("")
+                                                         .map(body -> response.rawStatusCode() + " " + body))
+                     .block(TIMEOUT);
+    }
+
+    @Test
+    void replaysRecordedExchangesOffline() throws IOException {
+        Path path = Files.createTempFile("upstream", ".ndjson.gz");
+        String baseUri;
+        String roster;
+        String employee;
+        String missing;
+        String created;
+        try (StubUpstream upstream = StubUpstream.builder()
+                                                 .rosterSize(20)
+                                                 .latency(StubUpstream.Latency.fixed(50))
+                                                 .build()) {
+            baseUri = upstream.baseUri();
+            UpstreamRecorder recording = recorder(UpstreamRecorder.RECORD, path, 1);
+            WebClient client = client(recording, baseUri);
+            roster = get(client, "/employees");
+            employee = get(client, "/employee/7");
+            missing = get(client, "/employee/999");
+            created = client.post()
+                            .uri("/create")
+                            .bodyValue(Map.of("name", "Recorded", "salary", 1, "age", 2))
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .block(TIMEOUT);
+            recording.close();
+        }
+
+        UpstreamRecorder replaying = recorder(UpstreamRecorder.REPLAY, path, 0);
+        WebClient client = client(replaying, baseUri);
+        assertEquals(roster, get(client, "/employees"));
+        assertEquals(employee, get(client, "/employee/7"));
+        assertEquals(missing, get(client, "/employee/999"));
+        assertTrue(missing.startsWith(HttpStatus.NOT_FOUND.value() + " "));
+        assertEquals(created, client.post()
+                                    .uri("/create")
+                                    .bodyValue(Map.of("name", "Something else"))
+                                    .retrieve()
+                                    .bodyToMono(String.class)
+                                    .block(TIMEOUT));
+        // exchanges are served again once a URI's recording runs out
+        assertEquals(employee, get(client, "/employee/7"));
+        assertThrows(IllegalStateException.class, () -> get(client, "/employee/8"));
+    }
+
+    /**
+     * Write a recording by hand, for exchanges the stub upstream does not produce.
+     */
+    private static Path recording(RecordedExchange... exchanges) throws IOException {
+        Path path = Files.createTempFile("upstream", ".ndjson.gz");
+        ObjectMapper mapper = new ObjectMapper();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(path)),
+                                                    StandardCharsets.UTF_8)) {
+            for (RecordedExchange exchange : exchanges) {
+                writer.write(mapper.writeValueAsString(exchange));
+                writer.write('\n');
+            }
+        }
+        return path;
+    }
+
+    private static RecordedExchange exchange(String uri,
+                                             int status,
+                                             String body) {
+        RecordedExchange exchange = new RecordedExchange();
+        exchange.setTenant(TenantRegistry.DEFAULT_TENANT);
+        exchange.setMethod("GET");
+        exchange.setUri(uri);
+        exchange.setStatus(status);
+        exchange.setHeaders(Map.of());
+        exchange.setBody(body);
+        return exchange;
+    }
+
+    @Test
+    void replaysNonStandardStatusCodes() throws IOException {
+        Path path = recording(exchange("/employee/1", 599, "odd"));
+        WebClient client = client(recorder(UpstreamRecorder.REPLAY, path, 0), "http://127.0.0.1:1");
+        assertEquals("599 odd", get(client, "/employee/1"));
+    }
+
+    @Test
+    void replayedHeadersDescribeTheReplayedBody() throws IOException {
+        RecordedExchange exchange = exchange("/employee/1", 200, "caf\u00e9");
+        exchange.setHeaders(Map.of(HttpHeaders.CONTENT_TYPE, List.of("text/plain;charset=ISO-8859-1"),
+                                   HttpHeaders.CONTENT_ENCODING, List.of("gzip"),
+                                   HttpHeaders.CONTENT_LENGTH, List.of("999")));
+        WebClient client = client(recorder(UpstreamRecorder.REPLAY, recording(exchange), 0), "http://127.0.0.1:1");
+        HttpHeaders headers = client.get()
+                                    .uri("/employee/1")
+                                    .retrieve()
+                                    .toEntity(String.class)
+                                    .block(TIMEOUT)
+                                    .getHeaders();
+        assertEquals(5, headers.getContentLength());
+        assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(StandardCharsets.UTF_8, headers.getContentType()
+                                                    .getCharset());
+    }
+
+    @Test
+    void replayKeepsTheRecordedPace() throws IOException {
+        RecordedExchange first = exchange("/employee/1", 200, "first");
+        first.setLatencyMs(10);
+        RecordedExchange later = exchange("/employee/2", 200, "later");
+        later.setOffsetMs(400);
+        later.setLatencyMs(10);
+        WebClient client = client(recorder(UpstreamRecorder.REPLAY, recording(first, later), 1), "http://127.0.0.1:1");
+
+        long start = System.nanoTime();
+        get(client, "/employee/1");
+        assertTrue(Duration.ofNanos(System.nanoTime() - start)
+                           .toMillis() < 300);
+        // asked for straight away, but answered when it was in the recording
+        get(client, "/employee/2");
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start)
+                                 .toMillis();
+        assertTrue(elapsedMs >= 350, "replay took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void replayScalesRecordedLatency() throws IOException {
+        Path path = Files.createTempFile("upstream", ".ndjson.gz");
+        String baseUri;
+        try (StubUpstream upstream = StubUpstream.builder()
+                                                 .latency(StubUpstream.Latency.fixed(200))
+                                                 .build()) {
+            baseUri = upstream.baseUri();
+            UpstreamRecorder recording = recorder(UpstreamRecorder.RECORD, path, 1);
+            get(client(recording, baseUri), "/employee/1");
+            recording.close();
+        }
+
+        for (double timeScale : List.of(0.0, 1.0)) {
+            WebClient client = client(recorder(UpstreamRecorder.REPLAY, path, timeScale), baseUri);
+            long start = System.nanoTime();
+            get(client, "/employee/1");
+            long elapsedMs = Duration.ofNanos(System.nanoTime() - start)
+                                     .toMillis();
+            if (timeScale == 0) {
+                assertTrue(elapsedMs < 200, "unscaled replay took " + elapsedMs + " ms");
+            } else {
+                assertTrue(elapsedMs >= 200, "replay at original timing took " + elapsedMs + " ms");
+            }
+        }
+    }
+
+}
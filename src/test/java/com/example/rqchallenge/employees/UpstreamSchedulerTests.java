@@ -0,0 +1,147 @@
+package com.example.rqchallenge.employees;
+
+import com.example.rqchallenge.employees.UpstreamScheduler.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamSchedulerTests {
+
+    private static final Map<Lane, Integer> WEIGHTS = Map.of(Lane.INTERACTIVE, 3, Lane.BULK, 1, Lane.BACKGROUND, 1);
+
+    /**
+     * Occupy the scheduler's only slot until the returned sink is completed.
+     */
+    private static Sinks.Empty<Void> block(UpstreamScheduler scheduler) {
+        Sinks.Empty<Void> blocker = Sinks.empty();
+        scheduler.schedule(Lane.INTERACTIVE, blocker.asMono())
+                 .subscribe();
+        return blocker;
+    }
+
+    @Test
+    void lanesAreAdmittedInProportionToTheirWeights() {
+        UpstreamScheduler scheduler = new UpstreamScheduler(1, WEIGHTS, Map.of(Lane.INTERACTIVE, 100, Lane.BULK, 100));
+        Sinks.Empty<Void> blocker = block(scheduler);
+        List<Lane> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 8; i++) {
+            for (Lane lane : List.of(Lane.BULK, Lane.INTERACTIVE)) {
+                scheduler.schedule(lane, Mono.fromRunnable(() -> order.add(lane)))
+                         .subscribe();
+            }
+        }
+        assertTrue(order.isEmpty());
+
+        blocker.tryEmitEmpty();
+        assertEquals(List.of(Lane.INTERACTIVE, Lane.INTERACTIVE, Lane.BULK, Lane.INTERACTIVE,
+                             Lane.INTERACTIVE, Lane.INTERACTIVE, Lane.BULK, Lane.INTERACTIVE),
+                     order.subList(0, 8));
+        // once interactive calls run out, bulk ones are no longer held back
+        assertEquals(16, order.size());
+        assertEquals(Collections.nCopies(6, Lane.BULK), order.subList(10, 16));
+    }
+
+    @Test
+    void callsBeyondLaneCapacityAreShed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamScheduler scheduler = new UpstreamScheduler(1, WEIGHTS, Map.of(Lane.INTERACTIVE, 10, Lane.BULK, 2));
+        scheduler.bindTo(registry, "default");
+        block(scheduler);
+
+        AtomicReference<Throwable> shed = new AtomicReference<>();
+        for (int i = 0; i < 3; i++) {
+            scheduler.schedule(Lane.BULK, Mono.empty())
+                     .subscribe(null, shed::set);
+        }
+        assertTrue(shed.get() instanceof UpstreamOverloadedException, String.valueOf(shed.get()));
+        assertTrue(((UpstreamOverloadedException) shed.get()).getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, registry.get("employee.scheduler.rejected")
+                                  .tag("lane", "bulk")
+                                  .counter()
+                                  .count());
+        assertEquals(2.0, registry.get("employee.scheduler.queued")
+                                  .tag("lane", "bulk")
+                                  .gauge()
+                                  .value());
+    }
+
+    @Test
+    void cancelledCallsGiveUpTheirPlaceWithoutBeingAdmitted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamScheduler scheduler = new UpstreamScheduler(1, WEIGHTS, Map.of(Lane.INTERACTIVE, 10, Lane.BULK, 2));
+        scheduler.bindTo(registry, "default");
+        Sinks.Empty<Void> blocker = block(scheduler);
+
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        Disposable first = scheduler.schedule(Lane.BULK, Mono.fromRunnable(cancelledRuns::incrementAndGet))
+                                    .subscribe();
+        Disposable second = scheduler.schedule(Lane.BULK, Mono.fromRunnable(cancelledRuns::incrementAndGet))
+                                     .subscribe();
+        first.dispose();
+        second.dispose();
+        assertEquals(0.0, registry.get("employee.scheduler.queued")
+                                  .tag("lane", "bulk")
+                                  .gauge()
+                                  .value());
+
+        // the freed places can be taken again without shedding
+        AtomicInteger runs = new AtomicInteger();
+        AtomicReference<Throwable> shed = new AtomicReference<>();
+        for (int i = 0; i < 2; i++) {
+            scheduler.schedule(Lane.BULK, Mono.fromRunnable(runs::incrementAndGet))
+                     .subscribe(null, shed::set);
+        }
+        assertNull(shed.get());
+
+        blocker.tryEmitEmpty();
+        assertEquals(2, runs.get());
+        assertEquals(0, cancelledRuns.get());
+        // only the admitted calls count in the queueing time
+        assertEquals(2, registry.get("employee.scheduler.queue-time")
+                                .tag("lane", "bulk")
+                                .timer()
+                                .count());
+        assertEquals(0.0, registry.get("employee.scheduler.active")
+                                  .gauge()
+                                  .value());
+    }
+
+    @Test
+    void cancelledCallsDoNotUseTheirLanesTurn() {
+        UpstreamScheduler scheduler = new UpstreamScheduler(1, WEIGHTS, Map.of(Lane.INTERACTIVE, 100, Lane.BULK, 100));
+        Sinks.Empty<Void> blocker = block(scheduler);
+        List<Lane> order = Collections.synchronizedList(new ArrayList<>());
+        List<Disposable> cancelled = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            cancelled.add(scheduler.schedule(Lane.INTERACTIVE, Mono.fromRunnable(() -> order.add(Lane.INTERACTIVE)))
+                                   .subscribe());
+        }
+        for (int i = 0; i < 2; i++) {
+            scheduler.schedule(Lane.BULK, Mono.fromRunnable(() -> order.add(Lane.BULK)))
+                     .subscribe();
+        }
+        for (int i = 0; i < 3; i++) {
+            scheduler.schedule(Lane.INTERACTIVE, Mono.fromRunnable(() -> order.add(Lane.INTERACTIVE)))
+                     .subscribe();
+        }
+        cancelled.forEach(Disposable::dispose);
+
+        blocker.tryEmitEmpty();
+        // the round starts afresh as if the cancelled calls had never been queued
+        assertEquals(List.of(Lane.INTERACTIVE, Lane.INTERACTIVE, Lane.BULK, Lane.INTERACTIVE, Lane.BULK), order);
+    }
+
+}